@@ -1,19 +1,38 @@
 package edu.college.courses;
 
 import edu.college.courses.config.DatabaseConfig;
+import edu.college.courses.dao.CourseCache;
+import edu.college.courses.dao.CourseDAO;
+import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.graph.EligibilityEvaluator;
+import edu.college.courses.graph.PrerequisiteGraph;
+import edu.college.courses.service.BatchEligibilityService;
 import edu.college.courses.service.CSVImportService;
+import edu.college.courses.service.CourseSearchIndex;
 import edu.college.courses.service.PrerequisiteAnalysisService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 
 /**
  * Main application class for course prerequisite management
+ *
+ * Usage:
+ *   Application                                        run the demonstration
+ *   Application eligibility <transcripts> <output>     batch eligibility check
+ *
+ * The eligibility check starts from the binary catalog snapshot named by the
+ * {@code catalog.snapshot} system property (default {@code catalog.snapshot}) when it is
+ * current, and rewrites it from the database when it is not.
  */
 public class Application {
     private static final Logger logger = LoggerFactory.getLogger(Application.class);
+    
+    private static final Path CATALOG_SNAPSHOT = Paths.get(System.getProperty("catalog.snapshot", "catalog.snapshot"));
 
     public static void main(String[] args) {
         logger.info("Starting Course Prerequisite Management Application");
@@ -26,12 +45,32 @@ public class Application {
             }
             logger.info("Database connection successful");
             
+            // Services share one DAO pair so course lookups go through one cache
+            CourseDAO courseDAO = new CourseDAO(new CourseCache());
+            PrerequisiteDAO prerequisiteDAO = new PrerequisiteDAO();
+            
+            if (args.length >= 3 && "eligibility".equals(args[0])) {
+                PrerequisiteGraph graph = new PrerequisiteAnalysisService(courseDAO, prerequisiteDAO)
+                    .loadGraph(CATALOG_SNAPSHOT);
+                BatchEligibilityService batchService = new BatchEligibilityService(courseDAO, prerequisiteDAO);
+                BatchEligibilityService.BatchResult result = batchService.checkEligibility(
+                    EligibilityEvaluator.compile(graph), Paths.get(args[1]), Paths.get(args[2]));
+                logger.info("Eligibility check completed: {}", result);
+                return;
+            }
+            
             // Initialize services
-            CSVImportService csvImportService = new CSVImportService();
-            PrerequisiteAnalysisService analysisService = new PrerequisiteAnalysisService();
+            CSVImportService csvImportService = new CSVImportService(courseDAO, prerequisiteDAO);
+            PrerequisiteAnalysisService analysisService = new PrerequisiteAnalysisService(courseDAO, prerequisiteDAO);
+            
+            // Built before the import; courses written through courseDAO are indexed as they arrive
+            CourseSearchIndex searchIndex = CourseSearchIndex.build(courseDAO);
             
             // Example usage
             demonstrateUsage(csvImportService, analysisService);
+            logger.info("Course lookups: {}", courseDAO.getCache());
+            logger.info("Search for 'calculus': {}", searchIndex.search("calculus", 10));
+            logger.info("Courses starting with 'Math2': {}", searchIndex.complete("Math2", 10));
             
         } catch (Exception e) {
             logger.error("Application error", e);
@@ -57,7 +96,7 @@ public class Application {
                 logger.info("Import completed: {}", result);
                 
                 if (result.hasErrors()) {
-                    logger.warn("Import had {} errors:", result.getErrors().size());
+                    logger.warn("Import had {} errors:", result.getErrorCount());
                     for (String error : result.getErrors()) {
                         logger.warn("  - {}", error);
                     }
@@ -70,8 +109,9 @@ public class Application {
             logger.info("\n=== Prerequisite Analysis ===");
             
             // Get all relationships
-            var allRelationships = analysisService.getAllPrerequisiteRelationships();
-            logger.info("Found {} prerequisite relationships", allRelationships.size());
+            try (var relationships = analysisService.streamAllPrerequisiteRelationships()) {
+                logger.info("Found {} prerequisite relationships", relationships.count());
+            }
             
             // Generate comprehensive report
             String report = analysisService.generatePrerequisiteReport();
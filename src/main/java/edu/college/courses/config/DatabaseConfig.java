@@ -17,7 +17,7 @@ public class DatabaseConfig {
     private static HikariDataSource dataSource;
     
     // Database configuration
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/college_courses?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/college_courses?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
     private static final String DB_USERNAME = "root";
     private static final String DB_PASSWORD = "password"; // Change this to your MySQL password
     private static final String DB_DRIVER = "com.mysql.cj.jdbc.Driver";
@@ -0,0 +1,27 @@
+package edu.college.courses.dao;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Thrown when a prerequisite write would make a course (indirectly) require itself
+ */
+public class CircularPrerequisiteException extends SQLIntegrityConstraintViolationException {
+    private static final long serialVersionUID = 1L;
+
+    private final int courseId;
+    private final int prerequisiteCourseId;
+
+    public CircularPrerequisiteException(int courseId, int prerequisiteCourseId) {
+        super("Prerequisite " + prerequisiteCourseId + " -> " + courseId + " would create a circular dependency");
+        this.courseId = courseId;
+        this.prerequisiteCourseId = prerequisiteCourseId;
+    }
+
+    public int getCourseId() {
+        return courseId;
+    }
+
+    public int getPrerequisiteCourseId() {
+        return prerequisiteCourseId;
+    }
+}
@@ -0,0 +1,201 @@
+package edu.college.courses.dao;
+
+import edu.college.courses.model.Course;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded read-through cache of courses for {@link CourseDAO}, keyed by course ID with a
+ * secondary index by name.
+ *
+ * Entries are evicted least-recently-used once {@code maxEntries} is reached and expire
+ * {@code ttlMillis} after they were loaded, which bounds staleness against writes that do
+ * not go through the DAO. Courses are copied in and out, so callers can modify what they get.
+ *
+ * Every invalidation advances a generation counter. A reader takes {@link #generation()} before
+ * its query and passes it to {@link #put(Course, long)}, which drops the row if anything was
+ * invalidated meanwhile, so a row read before a concurrent write cannot be cached after it.
+ */
+public class CourseCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, CachedCourse> byId;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+
+    // Advanced by every invalidation
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CourseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    public CourseCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size and TTL must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.byId = new LinkedHashMap<Integer, CachedCourse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedCourse> eldest) {
+                if (size() <= CourseCache.this.maxEntries) {
+                    return false;
+                }
+                idsByName.remove(eldest.getValue().course.getCourseName());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Cached course by ID, or null on a miss
+     */
+    public synchronized Course getById(int courseId) {
+        CachedCourse entry = byId.get(courseId);
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                remove(courseId);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.course);
+    }
+
+    /**
+     * Cached course by name, or null on a miss
+     */
+    public synchronized Course getByName(String courseName) {
+        Integer courseId = idsByName.get(courseName);
+        if (courseId == null) {
+            misses++;
+            return null;
+        }
+        return getById(courseId);
+    }
+
+    /**
+     * Current invalidation generation; take it before querying a row to cache
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Cache a course loaded from the database, unless something was invalidated since
+     * {@code generation} was taken; returns whether it was cached
+     */
+    public synchronized boolean put(Course course, long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        put(course);
+        return true;
+    }
+
+    /**
+     * Cache a course loaded from the database
+     */
+    public synchronized void put(Course course) {
+        remove(course.getCourseId());
+        Integer previous = idsByName.put(course.getCourseName(), course.getCourseId());
+        if (previous != null && previous != course.getCourseId()) {
+            // The name moved to another course; drop the stale entry
+            byId.remove(previous);
+        }
+        byId.put(course.getCourseId(), new CachedCourse(copy(course), System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Drop a course after it was updated or deleted
+     */
+    public synchronized void invalidate(int courseId) {
+        generation++;
+        remove(courseId);
+    }
+
+    /**
+     * Drop whatever course is cached under a name
+     */
+    public synchronized void invalidateName(String courseName) {
+        generation++;
+        Integer courseId = idsByName.get(courseName);
+        if (courseId != null) {
+            remove(courseId);
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        byId.clear();
+        idsByName.clear();
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Entries dropped to stay within the size bound (expired entries are not counted)
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    private void remove(int courseId) {
+        CachedCourse entry = byId.remove(courseId);
+        if (entry != null) {
+            idsByName.remove(entry.course.getCourseName(), courseId);
+        }
+    }
+
+    private boolean isExpired(CachedCourse entry) {
+        return System.nanoTime() - entry.expiresAt > 0;
+    }
+
+    private static Course copy(Course course) {
+        return new Course(course.getCourseId(), course.getCourseName(), course.getCreditHours(),
+                          course.getMajorType(), course.getDescription(),
+                          course.getCreatedAt(), course.getUpdatedAt());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CourseCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f}",
+                           byId.size(), maxEntries, hits, misses, evictions, getHitRate());
+    }
+
+    private static class CachedCourse {
+        final Course course;
+        final long expiresAt;
+
+        CachedCourse(Course course, long expiresAt) {
+            this.course = course;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package edu.college.courses.dao;
 
 import edu.college.courses.config.DatabaseConfig;
+import edu.college.courses.model.CatalogVersion;
 import edu.college.courses.model.Course;
+import edu.college.courses.model.KeysetCursor;
+import edu.college.courses.model.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for Course operations
@@ -20,6 +27,11 @@ public class CourseDAO {
     private static final String INSERT_COURSE = 
         "INSERT INTO courses (course_name, credit_hours, major_type, description) VALUES (?, ?, ?, ?)";
     
+    // Keyed by the unique course name, as a CSV feed identifies courses
+    private static final String UPSERT_COURSE = 
+        INSERT_COURSE + " ON DUPLICATE KEY UPDATE credit_hours = VALUES(credit_hours), " +
+        "major_type = VALUES(major_type), description = VALUES(description)";
+    
     private static final String SELECT_BY_ID = 
         "SELECT * FROM courses WHERE course_id = ?";
     
@@ -37,11 +49,140 @@ public class CourseDAO {
     
     private static final String SEARCH_COURSES = 
         "SELECT * FROM courses WHERE course_name LIKE ? OR description LIKE ? ORDER BY course_name";
+    
+    // Keyset pages: course_name is unique, so seeking past the last name is a range scan on its
+    // index that stops after the page (MySQL does not use a range for a row-constructor comparison)
+    private static final String SELECT_PAGE = 
+        "SELECT * FROM courses ORDER BY course_name LIMIT ?";
+    
+    private static final String SELECT_PAGE_AFTER = 
+        "SELECT * FROM courses WHERE course_name > ? ORDER BY course_name LIMIT ?";
+    
+    private static final String SEARCH_PAGE = 
+        "SELECT * FROM courses WHERE (course_name LIKE ? OR description LIKE ?) " +
+        "ORDER BY course_name LIMIT ?";
+    
+    private static final String SEARCH_PAGE_AFTER = 
+        "SELECT * FROM courses WHERE (course_name LIKE ? OR description LIKE ?) " +
+        "AND course_name > ? ORDER BY course_name LIMIT ?";
+    
+    private static final String SELECT_WITHOUT_PREREQUISITES = 
+        "SELECT c.* FROM courses c " +
+        "WHERE NOT EXISTS (SELECT 1 FROM prerequisites p WHERE p.course_id = c.course_id) " +
+        "ORDER BY c.course_name";
+    
+    private static final String SELECT_POPULAR_PREREQUISITES = 
+        "SELECT c.*, COUNT(*) AS dependent_count FROM courses c " +
+        "JOIN prerequisites p ON p.prerequisite_course_id = c.course_id " +
+        "GROUP BY c.course_id " +
+        "HAVING COUNT(*) >= ? " +
+        "ORDER BY dependent_count DESC, c.course_name";
+    
+    private static final String SELECT_ALL_IDS = 
+        "SELECT course_id, course_name FROM courses";
+    
+    private static final String SELECT_ALL_ROWS = 
+        "SELECT course_id, course_name, credit_hours, major_type, description FROM courses";
+    
+    // One round trip over indexed aggregates; counts catch deletes, timestamps catch inserts and updates
+    private static final String SELECT_CATALOG_VERSION = 
+        "SELECT (SELECT COUNT(*) FROM courses) AS course_count, " +
+        "(SELECT MAX(updated_at) FROM courses) AS courses_updated_at, " +
+        "(SELECT COUNT(*) FROM prerequisites) AS prerequisite_count, " +
+        "(SELECT MAX(updated_at) FROM prerequisites) AS prerequisites_updated_at";
+
+    /** Largest page accepted by the paginated queries */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    /**
+     * Notified after courses are written through this DAO, e.g. to keep an in-memory index current
+     */
+    public interface CourseChangeListener {
+        /** A course was inserted or updated; {@code course} carries its ID */
+        void courseSaved(Course course);
+
+        void courseDeleted(int courseId);
+    }
+
+    /**
+     * Receives one course row of a full scan without building a {@link Course}
+     */
+    @FunctionalInterface
+    public interface CourseRowHandler {
+        void handle(int courseId, String courseName, int creditHours, Course.MajorType majorType, String description);
+    }
+
+    // Optional read-through cache for findById and findByName; null disables caching
+    private final CourseCache cache;
+    private final CopyOnWriteArrayList<CourseChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public CourseDAO() {
+        this(null);
+    }
+
+    public CourseDAO(CourseCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * The lookup cache, or null if caching is disabled
+     */
+    public CourseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Register a listener; a listener already registered is not added again
+     */
+    public void addChangeListener(CourseChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeChangeListener(CourseChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tell listeners about courses written with {@link #insertCoursesBatch} or updated otherwise
+     * on a caller's connection. Batch writes do not notify by themselves, since only the caller
+     * knows whether its transaction committed; call this after the commit. The courses are
+     * dropped from the cache again here, since a lookup on another connection before the commit
+     * may have cached the old row.
+     */
+    public void publishSaved(List<Course> courses) {
+        for (Course course : courses) {
+            if (course.getCourseId() > 0) {
+                invalidate(course.getCourseId());
+            }
+            invalidate(course.getCourseName());
+        }
+        for (CourseChangeListener listener : listeners) {
+            for (Course course : courses) {
+                listener.courseSaved(course);
+            }
+        }
+    }
+
+    /**
+     * Tell listeners about courses deleted with {@link #deleteCoursesBatch}, after the caller
+     * committed, and drop them from the cache again
+     */
+    public void publishDeleted(List<Integer> courseIds) {
+        for (int courseId : courseIds) {
+            invalidate(courseId);
+        }
+        for (CourseChangeListener listener : listeners) {
+            for (int courseId : courseIds) {
+                listener.courseDeleted(courseId);
+            }
+        }
+    }
 
     /**
      * Insert a new course
      */
     public int insertCourse(Course course) throws SQLException {
+        invalidate(course.getCourseName());
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_COURSE, Statement.RETURN_GENERATED_KEYS)) {
             
@@ -58,6 +199,7 @@ public class CourseDAO {
                         int courseId = generatedKeys.getInt(1);
                         course.setCourseId(courseId);
                         logger.info("Course inserted with ID: {}", courseId);
+                        publishSaved(Collections.singletonList(course));
                         return courseId;
                     }
                 }
@@ -67,10 +209,87 @@ public class CourseDAO {
         }
     }
 
+    /**
+     * Insert courses as one JDBC batch on the caller's connection.
+     * Generated IDs are written back to the courses in insertion order.
+     * Change listeners are not notified; see {@link #publishSaved}.
+     */
+    public void insertCoursesBatch(Connection conn, List<Course> courses) throws SQLException {
+        if (courses.isEmpty()) {
+            return;
+        }
+        
+        for (Course course : courses) {
+            invalidate(course.getCourseName());
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_COURSE, Statement.RETURN_GENERATED_KEYS)) {
+            for (Course course : courses) {
+                stmt.setString(1, course.getCourseName());
+                stmt.setInt(2, course.getCreditHours());
+                stmt.setString(3, course.getMajorType().getValue());
+                stmt.setString(4, course.getDescription());
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            
+            int index = 0;
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                while (index < courses.size() && generatedKeys.next()) {
+                    courses.get(index++).setCourseId(generatedKeys.getInt(1));
+                }
+            }
+            
+            if (index != courses.size()) {
+                throw new SQLException("Expected " + courses.size() + " generated keys but received " + index);
+            }
+        }
+        
+        logger.debug("Batch inserted {} courses", courses.size());
+    }
+
+    /**
+     * Insert or update courses by name as one JDBC batch on the caller's connection; a course
+     * whose name exists gets the credit hours, major type and description given. Generated IDs
+     * are not read back, so set IDs beforehand if listeners are told with {@link #publishSaved}.
+     * Call that after the commit in any case, so cached copies of the old rows are dropped.
+     */
+    public void upsertCoursesBatch(Connection conn, List<Course> courses) throws SQLException {
+        if (courses.isEmpty()) {
+            return;
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT_COURSE)) {
+            for (Course course : courses) {
+                invalidate(course.getCourseName());
+                if (course.getCourseId() > 0) {
+                    invalidate(course.getCourseId());
+                }
+                stmt.setString(1, course.getCourseName());
+                stmt.setInt(2, course.getCreditHours());
+                stmt.setString(3, course.getMajorType().getValue());
+                stmt.setString(4, course.getDescription());
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+        }
+        
+        logger.debug("Batch upserted {} courses", courses.size());
+    }
+
     /**
      * Find course by ID
      */
     public Optional<Course> findById(int courseId) throws SQLException {
+        if (cache != null) {
+            Course cached = cache.getById(courseId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        
+        long generation = cacheGeneration();
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID)) {
             
@@ -78,7 +297,7 @@ public class CourseDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToCourse(rs));
+                    return Optional.of(cacheCourse(mapResultSetToCourse(rs), generation));
                 }
             }
         }
@@ -89,6 +308,14 @@ public class CourseDAO {
      * Find course by name
      */
     public Optional<Course> findByName(String courseName) throws SQLException {
+        if (cache != null) {
+            Course cached = cache.getByName(courseName);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        
+        long generation = cacheGeneration();
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SELECT_BY_NAME)) {
             
@@ -96,7 +323,7 @@ public class CourseDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToCourse(rs));
+                    return Optional.of(cacheCourse(mapResultSetToCourse(rs), generation));
                 }
             }
         }
@@ -104,7 +331,7 @@ public class CourseDAO {
     }
 
     /**
-     * Get all courses
+     * Get all courses; use {@link #findPage} for large catalogs
      */
     public List<Course> findAll() throws SQLException {
         List<Course> courses = new ArrayList<>();
@@ -121,6 +348,119 @@ public class CourseDAO {
         return courses;
     }
 
+    /**
+     * Get one page of courses ordered by name, starting after {@code after}
+     * (null for the first page)
+     */
+    public Page<Course> findPage(KeysetCursor after, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(after == null ? SELECT_PAGE : SELECT_PAGE_AFTER)) {
+            
+            int index = 1;
+            if (after != null) {
+                stmt.setString(index++, after.getCourseName());
+            }
+            stmt.setInt(index, pageSize + 1);
+            return readPage(stmt, pageSize);
+        }
+    }
+
+    /**
+     * Find courses that have no prerequisites (anti-join, one round trip)
+     */
+    public List<Course> findCoursesWithoutPrerequisites() throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_WITHOUT_PREREQUISITES);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                courses.add(mapResultSetToCourse(rs));
+            }
+        }
+        
+        return courses;
+    }
+
+    /**
+     * Find courses that are a prerequisite for at least {@code minCount} courses,
+     * most required first (aggregated in one round trip)
+     */
+    public List<Course> findCoursesRequiredByAtLeast(int minCount) throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_POPULAR_PREREQUISITES)) {
+            
+            stmt.setInt(1, minCount);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapResultSetToCourse(rs));
+                }
+            }
+        }
+        
+        return courses;
+    }
+
+    /**
+     * Get the ID of every course keyed by course name
+     */
+    public Map<String, Integer> findAllCourseIds() throws SQLException {
+        Map<String, Integer> courseIds = new HashMap<>();
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_IDS);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                courseIds.put(rs.getString("course_name"), rs.getInt("course_id"));
+            }
+        }
+        
+        return courseIds;
+    }
+
+    /**
+     * Scan every course row, streamed from the server so the scan holds one row at a time
+     */
+    public void forEachCourse(CourseRowHandler handler) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_ROWS, 
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // MySQL Connector/J streams row by row only with this fetch size
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs.getInt(1), rs.getString(2), rs.getInt(3),
+                                   Course.MajorType.fromString(rs.getString(4)), rs.getString(5));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a fingerprint of the current catalog, for checking whether a cached copy is stale
+     */
+    public CatalogVersion getCatalogVersion() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_CATALOG_VERSION);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (!rs.next()) {
+                throw new SQLException("Failed to read catalog version");
+            }
+            return new CatalogVersion(rs.getInt("course_count"),
+                                      toEpochMicros(rs.getTimestamp("courses_updated_at")),
+                                      rs.getInt("prerequisite_count"),
+                                      toEpochMicros(rs.getTimestamp("prerequisites_updated_at")));
+        }
+    }
+
     /**
      * Update course
      */
@@ -135,7 +475,12 @@ public class CourseDAO {
             stmt.setInt(5, course.getCourseId());
             
             int affectedRows = stmt.executeUpdate();
+            invalidate(course.getCourseId());
+            invalidate(course.getCourseName());
             logger.info("Course updated: {} rows affected", affectedRows);
+            if (affectedRows > 0) {
+                publishSaved(Collections.singletonList(course));
+            }
             return affectedRows > 0;
         }
     }
@@ -150,13 +495,44 @@ public class CourseDAO {
             stmt.setInt(1, courseId);
             
             int affectedRows = stmt.executeUpdate();
+            invalidate(courseId);
             logger.info("Course deleted: {} rows affected", affectedRows);
+            if (affectedRows > 0) {
+                publishDeleted(Collections.singletonList(courseId));
+            }
             return affectedRows > 0;
         }
     }
 
     /**
-     * Search courses by name or description
+     * Delete courses as one JDBC batch on the caller's connection; their prerequisite rows
+     * go with them through ON DELETE CASCADE. Change listeners are not notified and cached copies
+     * may be reloaded before the commit; call {@link #publishDeleted} after it.
+     */
+    public int deleteCoursesBatch(Connection conn, List<Integer> courseIds) throws SQLException {
+        if (courseIds.isEmpty()) {
+            return 0;
+        }
+        
+        int affectedRows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_COURSE)) {
+            for (int courseId : courseIds) {
+                invalidate(courseId);
+                stmt.setInt(1, courseId);
+                stmt.addBatch();
+            }
+            
+            for (int count : stmt.executeBatch()) {
+                affectedRows += Math.max(count, 0);
+            }
+        }
+        
+        logger.debug("Batch deleted {} courses", affectedRows);
+        return affectedRows;
+    }
+
+    /**
+     * Search courses by name or description; use {@link #searchCoursesPage} for large catalogs
      */
     public List<Course> searchCourses(String searchTerm) throws SQLException {
         List<Course> courses = new ArrayList<>();
@@ -178,6 +554,91 @@ public class CourseDAO {
         return courses;
     }
 
+    /**
+     * Get one page of courses whose name or description contains the search term, ordered by
+     * name, starting after {@code after} (null for the first page)
+     */
+    public Page<Course> searchCoursesPage(String searchTerm, KeysetCursor after, int pageSize) throws SQLException {
+        checkPageSize(pageSize);
+        String searchPattern = "%" + searchTerm + "%";
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(after == null ? SEARCH_PAGE : SEARCH_PAGE_AFTER)) {
+            
+            stmt.setString(1, searchPattern);
+            stmt.setString(2, searchPattern);
+            int index = 3;
+            if (after != null) {
+                stmt.setString(index++, after.getCourseName());
+            }
+            stmt.setInt(index, pageSize + 1);
+            return readPage(stmt, pageSize);
+        }
+    }
+
+    private static void checkPageSize(int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+    }
+
+    /**
+     * Read a page from a query limited to one row more than the page size; that extra row
+     * only tells whether another page follows
+     */
+    private Page<Course> readPage(PreparedStatement stmt, int pageSize) throws SQLException {
+        List<Course> courses = new ArrayList<>(Math.min(pageSize, 1024));
+        boolean hasNext = false;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (courses.size() == pageSize) {
+                    hasNext = true;
+                    break;
+                }
+                courses.add(mapResultSetToCourse(rs));
+            }
+        }
+        KeysetCursor next = hasNext ? KeysetCursor.after(courses.get(courses.size() - 1)) : null;
+        return new Page<>(courses, next);
+    }
+
+    /**
+     * Timestamp as epoch microseconds, keeping the sub-millisecond part; 0 for null
+     */
+    private static long toEpochMicros(Timestamp timestamp) {
+        if (timestamp == null) {
+            return 0;
+        }
+        return Math.floorDiv(timestamp.getTime(), 1000L) * 1_000_000L + timestamp.getNanos() / 1000;
+    }
+
+    private long cacheGeneration() {
+        return cache != null ? cache.generation() : 0;
+    }
+
+    /**
+     * Cache a course read after {@code generation} was taken, unless a write invalidated
+     * anything since
+     */
+    private Course cacheCourse(Course course, long generation) {
+        if (cache != null) {
+            cache.put(course, generation);
+        }
+        return course;
+    }
+
+    private void invalidate(int courseId) {
+        if (cache != null) {
+            cache.invalidate(courseId);
+        }
+    }
+
+    private void invalidate(String courseName) {
+        if (cache != null) {
+            cache.invalidateName(courseName);
+        }
+    }
+
     /**
      * Map ResultSet to Course object
      */
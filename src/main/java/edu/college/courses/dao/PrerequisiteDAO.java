@@ -1,14 +1,22 @@
 package edu.college.courses.dao;
 
 import edu.college.courses.config.DatabaseConfig;
+import edu.college.courses.graph.IncrementalCycleDetector;
 import edu.college.courses.model.Course;
 import edu.college.courses.model.Prerequisite;
+import edu.college.courses.model.PrerequisiteEdge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Data Access Object for Prerequisite operations
@@ -18,7 +26,11 @@ public class PrerequisiteDAO {
 
     // SQL queries
     private static final String INSERT_PREREQUISITE = 
-        "INSERT INTO prerequisites (course_id, prerequisite_course_id, is_required) VALUES (?, ?, ?)";
+        "INSERT INTO prerequisites (course_id, prerequisite_course_id, is_required, alternative_group) VALUES (?, ?, ?, ?)";
+    
+    private static final String UPSERT_PREREQUISITE = 
+        INSERT_PREREQUISITE + " ON DUPLICATE KEY UPDATE is_required = VALUES(is_required), " +
+        "alternative_group = VALUES(alternative_group)";
     
     private static final String SELECT_PREREQUISITES_FOR_COURSE = 
         "SELECT p.*, c.course_name, c.credit_hours, c.major_type, c.description " +
@@ -41,25 +53,209 @@ public class PrerequisiteDAO {
         "JOIN courses c2 ON p.prerequisite_course_id = c2.course_id " +
         "ORDER BY c1.course_name, c2.course_name";
     
+    // Streamed in the order of the unique (course_id, prerequisite_course_id) index: joining from
+    // prerequisites by primary key needs no filesort, so rows leave the server as they are read
+    private static final String SELECT_ALL_PREREQUISITES_IN_INDEX_ORDER = 
+        "SELECT STRAIGHT_JOIN p.*, c1.course_name, c1.credit_hours, c1.major_type, c1.description as course_desc, " +
+        "c2.course_name as prereq_name, c2.credit_hours as prereq_credits, c2.major_type as prereq_major, " +
+        "c2.description as prereq_desc " +
+        "FROM prerequisites p " +
+        "JOIN courses c1 ON p.course_id = c1.course_id " +
+        "JOIN courses c2 ON p.prerequisite_course_id = c2.course_id " +
+        "ORDER BY p.course_id, p.prerequisite_course_id";
+    
+    // Report scans: one row per edge, grouped by course or by prerequisite. Both follow an index
+    // on prerequisites, so rows stream without the server sorting the join first
+    private static final String SELECT_PREREQUISITE_ROWS_BY_COURSE = 
+        "SELECT STRAIGHT_JOIN c1.course_name, c2.course_name, c2.credit_hours, c2.major_type " +
+        "FROM prerequisites p " +
+        "JOIN courses c1 ON p.course_id = c1.course_id " +
+        "JOIN courses c2 ON p.prerequisite_course_id = c2.course_id " +
+        "ORDER BY p.course_id, p.prerequisite_course_id";
+    
+    private static final String SELECT_PREREQUISITE_ROWS_BY_PREREQUISITE = 
+        "SELECT STRAIGHT_JOIN c2.course_name, c1.course_name, c1.credit_hours, c1.major_type " +
+        "FROM prerequisites p " +
+        "JOIN courses c1 ON p.course_id = c1.course_id " +
+        "JOIN courses c2 ON p.prerequisite_course_id = c2.course_id " +
+        "ORDER BY p.prerequisite_course_id, p.course_id";
+    
     private static final String DELETE_PREREQUISITE = 
         "DELETE FROM prerequisites WHERE prerequisite_id = ?";
     
+    private static final String SELECT_PREREQUISITE_ENDPOINTS = 
+        "SELECT course_id, prerequisite_course_id FROM prerequisites WHERE prerequisite_id = ?";
+    
     private static final String DELETE_PREREQUISITES_FOR_COURSE = 
         "DELETE FROM prerequisites WHERE course_id = ?";
     
+    private static final String DELETE_PREREQUISITE_EDGE = 
+        "DELETE FROM prerequisites WHERE course_id = ? AND prerequisite_course_id = ?";
+    
     private static final String CHECK_PREREQUISITE_EXISTS = 
         "SELECT COUNT(*) FROM prerequisites WHERE course_id = ? AND prerequisite_course_id = ?";
+    
+    // Depth is bounded so that a circular dependency cannot recurse forever; chains cut off by
+    // the bound are flagged rather than returned incomplete
+    private static final String SELECT_PREREQUISITE_SUBGRAPH = 
+        "WITH RECURSIVE chain (course_id, prerequisite_course_id, depth) AS (" +
+        "  SELECT course_id, prerequisite_course_id, 1 FROM prerequisites WHERE course_id = ? " +
+        "  UNION " +
+        "  SELECT p.course_id, p.prerequisite_course_id, chain.depth + 1 " +
+        "  FROM prerequisites p JOIN chain ON p.course_id = chain.prerequisite_course_id " +
+        "  WHERE chain.depth < ?" +
+        ") " +
+        "SELECT ch.course_id, c1.course_name, ch.prerequisite_course_id, c2.course_name AS prereq_name, " +
+        "MIN(ch.depth) AS depth, " +
+        // Cut off at the depth limit: the prerequisite has an edge the recursion never reached.
+        // Edges of a circular dependency are all reached, so a cycle alone does not count.
+        "(MAX(ch.depth) >= ? AND EXISTS (SELECT 1 FROM prerequisites further " +
+        "  WHERE further.course_id = ch.prerequisite_course_id AND NOT EXISTS (SELECT 1 FROM chain seen " +
+        "    WHERE seen.course_id = further.course_id AND seen.prerequisite_course_id = further.prerequisite_course_id))" +
+        ") AS truncated " +
+        "FROM chain ch " +
+        "JOIN courses c1 ON ch.course_id = c1.course_id " +
+        "JOIN courses c2 ON ch.prerequisite_course_id = c2.course_id " +
+        "GROUP BY ch.course_id, ch.prerequisite_course_id, c1.course_name, c2.course_name " +
+        "ORDER BY depth, c1.course_name, c2.course_name";
+    
+    private static final String SELECT_ALL_EDGES = 
+        "SELECT course_id, prerequisite_course_id, is_required, alternative_group FROM prerequisites";
+    
+    private static final String UPDATE_ALTERNATIVE_GROUP = 
+        "UPDATE prerequisites SET alternative_group = ? WHERE course_id = ? AND prerequisite_course_id = ?";
+
+    /** Maximum chain length followed by {@link #getPrerequisiteSubgraph(int)} */
+    public static final int MAX_CHAIN_DEPTH = 100;
+
+    /**
+     * Receives one prerequisite edge as a pair of course IDs
+     */
+    @FunctionalInterface
+    public interface EdgeHandler {
+        void handle(int courseId, int prerequisiteCourseId);
+    }
+
+    /**
+     * Receives one prerequisite edge with its requirement semantics.
+     * {@code alternativeGroup} is 0 for a prerequisite that is required on its own.
+     */
+    @FunctionalInterface
+    public interface RequirementEdgeHandler {
+        void handle(int courseId, int prerequisiteCourseId, boolean required, int alternativeGroup);
+    }
+
+    /**
+     * Receives one row of a streamed report scan: a course and one course related to it,
+     * with the related course's details
+     */
+    @FunctionalInterface
+    public interface PrerequisiteRowHandler {
+        void handle(String courseName, String relatedName, int relatedCreditHours, Course.MajorType relatedMajorType);
+    }
+
+    // Set once cycle checking is enabled; follows the writes made through this DAO
+    private volatile IncrementalCycleDetector cycleDetector;
+
+    /**
+     * Start rejecting prerequisite inserts that would create a circular dependency.
+     * The current edges are loaded once; after that each insert is checked incrementally
+     * against the in-memory graph. Calling this again reloads the graph, e.g. after
+     * prerequisites were changed by another writer.
+     */
+    public IncrementalCycleDetector enableCycleCheck() throws SQLException {
+        int[][] edges = { new int[1024], new int[1024] };
+        int[] count = { 0 };
+        forEachEdge((courseId, prerequisiteCourseId) -> {
+            if (count[0] == edges[0].length) {
+                edges[0] = Arrays.copyOf(edges[0], count[0] * 2);
+                edges[1] = Arrays.copyOf(edges[1], count[0] * 2);
+            }
+            edges[0][count[0]] = courseId;
+            edges[1][count[0]] = prerequisiteCourseId;
+            count[0]++;
+        });
+        
+        cycleDetector = IncrementalCycleDetector.fromEdges(edges[0], edges[1], count[0]);
+        return cycleDetector;
+    }
+
+    // Keeps the cycle detector in step with deleted courses; see followCourseDeletes
+    private final CourseDAO.CourseChangeListener courseDeleteListener = new CourseDAO.CourseChangeListener() {
+        @Override
+        public void courseSaved(Course course) {
+        }
+
+        @Override
+        public void courseDeleted(int courseId) {
+            PrerequisiteDAO.this.courseDeleted(courseId);
+        }
+    };
+
+    /**
+     * Forget a deleted course in the cycle detector. Its prerequisite rows went with it through
+     * ON DELETE CASCADE, so edges through it must no longer count as cycles.
+     */
+    public void courseDeleted(int courseId) {
+        IncrementalCycleDetector detector = cycleDetector;
+        if (detector != null) {
+            detector.removeCourse(courseId);
+        }
+    }
+
+    /**
+     * Call {@link #courseDeleted(int)} for every course deleted through {@code courseDAO}.
+     * Registering more than once has no further effect.
+     */
+    public void followCourseDeletes(CourseDAO courseDAO) {
+        courseDAO.addChangeListener(courseDeleteListener);
+    }
+
+    /**
+     * The in-memory graph used for cycle checks, or null if cycle checking is not enabled
+     */
+    public IncrementalCycleDetector getCycleDetector() {
+        return cycleDetector;
+    }
+
+    /**
+     * Add an edge to the cycle detector before it is written. Returns true if the edge was
+     * newly tracked and must be released again if the write fails.
+     */
+    private boolean trackEdge(IncrementalCycleDetector detector, Prerequisite prerequisite) 
+            throws CircularPrerequisiteException {
+        int courseId = prerequisite.getCourseId();
+        int prerequisiteCourseId = prerequisite.getPrerequisiteCourseId();
+        if (detector.containsEdge(courseId, prerequisiteCourseId)) {
+            return false;
+        }
+        if (!detector.addEdge(courseId, prerequisiteCourseId)) {
+            throw new CircularPrerequisiteException(courseId, prerequisiteCourseId);
+        }
+        return true;
+    }
 
     /**
      * Insert a new prerequisite relationship
      */
     public int insertPrerequisite(Prerequisite prerequisite) throws SQLException {
+        IncrementalCycleDetector detector = cycleDetector;
+        boolean tracked = detector != null && trackEdge(detector, prerequisite);
+        try {
+            return doInsertPrerequisite(prerequisite);
+        } catch (SQLException e) {
+            if (tracked) {
+                detector.removeEdge(prerequisite.getCourseId(), prerequisite.getPrerequisiteCourseId());
+            }
+            throw e;
+        }
+    }
+
+    private int doInsertPrerequisite(Prerequisite prerequisite) throws SQLException {
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_PREREQUISITE, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setInt(1, prerequisite.getCourseId());
-            stmt.setInt(2, prerequisite.getPrerequisiteCourseId());
-            stmt.setBoolean(3, prerequisite.isRequired());
+            setInsertParameters(stmt, prerequisite);
             
             int affectedRows = stmt.executeUpdate();
             
@@ -78,6 +274,95 @@ public class PrerequisiteDAO {
         }
     }
 
+    /**
+     * Insert prerequisite relationships as one JDBC batch on the caller's connection.
+     * With cycle checking enabled the whole batch is rejected if any edge would close a cycle;
+     * if the caller later rolls back, it should remove the edges from {@link #getCycleDetector()}.
+     */
+    public int insertPrerequisitesBatch(Connection conn, List<Prerequisite> prerequisites) throws SQLException {
+        if (prerequisites.isEmpty()) {
+            return 0;
+        }
+        
+        IncrementalCycleDetector detector = cycleDetector;
+        List<Prerequisite> tracked = new ArrayList<>();
+        try {
+            if (detector != null) {
+                for (Prerequisite prerequisite : prerequisites) {
+                    if (trackEdge(detector, prerequisite)) {
+                        tracked.add(prerequisite);
+                    }
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_PREREQUISITE)) {
+                for (Prerequisite prerequisite : prerequisites) {
+                    setInsertParameters(stmt, prerequisite);
+                    stmt.addBatch();
+                }
+                
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            for (Prerequisite prerequisite : tracked) {
+                detector.removeEdge(prerequisite.getCourseId(), prerequisite.getPrerequisiteCourseId());
+            }
+            throw e;
+        }
+        
+        logger.debug("Batch inserted {} prerequisites", prerequisites.size());
+        return prerequisites.size();
+    }
+
+    /**
+     * Insert prerequisite relationships, or update the required flag and alternative group of
+     * those already stored, as one JDBC batch on the caller's connection. The cycle detector is
+     * not consulted or updated; callers check new edges against it themselves.
+     */
+    public int upsertPrerequisitesBatch(Connection conn, List<Prerequisite> prerequisites) throws SQLException {
+        if (prerequisites.isEmpty()) {
+            return 0;
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT_PREREQUISITE)) {
+            for (Prerequisite prerequisite : prerequisites) {
+                setInsertParameters(stmt, prerequisite);
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+        }
+        
+        logger.debug("Batch upserted {} prerequisites", prerequisites.size());
+        return prerequisites.size();
+    }
+
+    /**
+     * Delete prerequisite relationships by their endpoints as one JDBC batch on the caller's
+     * connection. The cycle detector is not updated; callers do so once the transaction commits.
+     */
+    public int deletePrerequisitesBatch(Connection conn, List<Prerequisite> prerequisites) throws SQLException {
+        if (prerequisites.isEmpty()) {
+            return 0;
+        }
+        
+        int affectedRows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_PREREQUISITE_EDGE)) {
+            for (Prerequisite prerequisite : prerequisites) {
+                stmt.setInt(1, prerequisite.getCourseId());
+                stmt.setInt(2, prerequisite.getPrerequisiteCourseId());
+                stmt.addBatch();
+            }
+            
+            for (int count : stmt.executeBatch()) {
+                affectedRows += Math.max(count, 0);
+            }
+        }
+        
+        logger.debug("Batch deleted {} prerequisites", affectedRows);
+        return affectedRows;
+    }
+
     /**
      * Get all prerequisites for a specific course
      */
@@ -120,6 +405,43 @@ public class PrerequisiteDAO {
         return prerequisites;
     }
 
+    /**
+     * Get every direct and indirect prerequisite edge of a course in one query.
+     * Each edge carries its shortest distance from the course (1 = direct prerequisite).
+     * Throws rather than return part of the subgraph if a chain is longer than
+     * {@link #MAX_CHAIN_DEPTH}.
+     */
+    public List<PrerequisiteEdge> getPrerequisiteSubgraph(int courseId) throws SQLException {
+        List<PrerequisiteEdge> edges = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_PREREQUISITE_SUBGRAPH)) {
+            
+            stmt.setInt(1, courseId);
+            stmt.setInt(2, MAX_CHAIN_DEPTH);
+            stmt.setInt(3, MAX_CHAIN_DEPTH);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean("truncated")) {
+                        logger.error("Prerequisite chain of course {} continues past {} at {}",
+                                    courseId, MAX_CHAIN_DEPTH, rs.getString("prereq_name"));
+                        throw new SQLException("Prerequisite chain of course " + courseId
+                                               + " is longer than " + MAX_CHAIN_DEPTH + " courses");
+                    }
+                    edges.add(new PrerequisiteEdge(
+                            rs.getInt("course_id"),
+                            rs.getString("course_name"),
+                            rs.getInt("prerequisite_course_id"),
+                            rs.getString("prereq_name"),
+                            rs.getInt("depth")));
+                }
+            }
+        }
+        
+        return edges;
+    }
+
     /**
      * Get all prerequisite relationships with full course details
      */
@@ -138,6 +460,200 @@ public class PrerequisiteDAO {
         return prerequisites;
     }
 
+    /**
+     * Pass every prerequisite relationship with full course details to a consumer as the rows
+     * stream in, without holding the whole result in memory. Rows come in course ID order, then
+     * prerequisite ID order, unlike {@link #getAllPrerequisitesWithDetails()}: sorting by name
+     * would hold back the first row until the server had sorted the whole join.
+     */
+    public void forEachPrerequisiteWithDetails(Consumer<Prerequisite> consumer) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = prepareStreaming(conn, SELECT_ALL_PREREQUISITES_IN_INDEX_ORDER);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                consumer.accept(mapResultSetToPrerequisiteWithDetails(rs));
+            }
+        }
+    }
+
+    /**
+     * Stream every prerequisite relationship with full course details, read row by row while
+     * the stream is consumed, in the order of {@link #forEachPrerequisiteWithDetails}. The stream
+     * holds a connection and must be closed, e.g. with try-with-resources; closing it early still
+     * reads the remaining rows off the connection. A database error while consuming is thrown as
+     * a {@link DataAccessException}.
+     */
+    public Stream<Prerequisite> streamAllPrerequisitesWithDetails() throws SQLException {
+        Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs;
+        try {
+            stmt = prepareStreaming(conn, SELECT_ALL_PREREQUISITES_IN_INDEX_ORDER);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeAll(e, stmt, conn);
+            throw e;
+        }
+        
+        Spliterator<Prerequisite> rows = new Spliterators.AbstractSpliterator<Prerequisite>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Prerequisite> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapResultSetToPrerequisiteWithDetails(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException(e);
+                }
+            }
+        };
+        
+        PreparedStatement statement = stmt;
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            SQLException failure = closeAll(null, rs, statement, conn);
+            if (failure != null) {
+                throw new DataAccessException(failure);
+            }
+        });
+    }
+
+    /**
+     * Close resources in order, collecting failures as suppressed exceptions of the first one
+     */
+    private static SQLException closeAll(SQLException failure, AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                SQLException closeFailure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                if (failure == null) {
+                    failure = closeFailure;
+                } else {
+                    failure.addSuppressed(closeFailure);
+                }
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Scan every prerequisite edge as raw course IDs without building objects
+     */
+    public void forEachEdge(EdgeHandler handler) throws SQLException {
+        forEachEdge((courseId, prerequisiteCourseId, required, alternativeGroup) ->
+                handler.handle(courseId, prerequisiteCourseId));
+    }
+
+    /**
+     * Scan every prerequisite edge with its required flag and alternative group
+     */
+    public void forEachEdge(RequirementEdgeHandler handler) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_EDGES);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                // getInt returns 0 for a NULL alternative group
+                handler.handle(rs.getInt(1), rs.getInt(2), rs.getBoolean(3), rs.getInt(4));
+            }
+        }
+    }
+
+    /**
+     * Stream every prerequisite edge grouped by course, in course ID order and then prerequisite
+     * ID order. The related course of each row is the prerequisite.
+     */
+    public void forEachPrerequisiteByCourse(PrerequisiteRowHandler handler) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            forEachPrerequisiteByCourse(conn, handler);
+        }
+    }
+
+    /**
+     * {@link #forEachPrerequisiteByCourse(PrerequisiteRowHandler)} on the caller's connection,
+     * e.g. to read several scans in one transaction
+     */
+    public void forEachPrerequisiteByCourse(Connection conn, PrerequisiteRowHandler handler) throws SQLException {
+        streamRows(conn, SELECT_PREREQUISITE_ROWS_BY_COURSE, handler);
+    }
+
+    /**
+     * Stream every prerequisite edge grouped by prerequisite, in prerequisite ID order and then
+     * course ID order. The first name of each row is the prerequisite and the related course is
+     * the course requiring it.
+     */
+    public void forEachPrerequisiteByPrerequisite(PrerequisiteRowHandler handler) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            forEachPrerequisiteByPrerequisite(conn, handler);
+        }
+    }
+
+    /**
+     * {@link #forEachPrerequisiteByPrerequisite(PrerequisiteRowHandler)} on the caller's connection
+     */
+    public void forEachPrerequisiteByPrerequisite(Connection conn, PrerequisiteRowHandler handler)
+            throws SQLException {
+        streamRows(conn, SELECT_PREREQUISITE_ROWS_BY_PREREQUISITE, handler);
+    }
+
+    /**
+     * Run a report scan with a streaming result set, so rows reach the handler as they arrive
+     * instead of being buffered client-side first
+     */
+    private void streamRows(Connection conn, String sql, PrerequisiteRowHandler handler) throws SQLException {
+        try (PreparedStatement stmt = prepareStreaming(conn, sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                handler.handle(rs.getString(1), rs.getString(2), rs.getInt(3),
+                               Course.MajorType.fromString(rs.getString(4)));
+            }
+        }
+    }
+
+    /**
+     * Prepare a forward-only query whose rows are streamed from the server one at a time
+     */
+    private static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // MySQL Connector/J streams row by row only with this fetch size
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        return stmt;
+    }
+
+    /**
+     * Make a set of existing prerequisites of a course alternatives of each other (OR),
+     * or pass a null group to make each of them required on its own again
+     */
+    public int setAlternativeGroup(int courseId, List<Integer> prerequisiteCourseIds, Integer alternativeGroup) 
+            throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_ALTERNATIVE_GROUP)) {
+            
+            for (int prerequisiteCourseId : prerequisiteCourseIds) {
+                setNullableInt(stmt, 1, alternativeGroup);
+                stmt.setInt(2, courseId);
+                stmt.setInt(3, prerequisiteCourseId);
+                stmt.addBatch();
+            }
+            
+            int affectedRows = 0;
+            for (int count : stmt.executeBatch()) {
+                affectedRows += Math.max(count, 0);
+            }
+            logger.info("Alternative group {} set for course {}: {} rows affected", 
+                       alternativeGroup, courseId, affectedRows);
+            return affectedRows;
+        }
+    }
+
     /**
      * Check if a prerequisite relationship already exists
      */
@@ -161,14 +677,32 @@ public class PrerequisiteDAO {
      * Delete a specific prerequisite
      */
     public boolean deletePrerequisite(int prerequisiteId) throws SQLException {
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(DELETE_PREREQUISITE)) {
-            
-            stmt.setInt(1, prerequisiteId);
+        IncrementalCycleDetector detector = cycleDetector;
+        
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // The detector needs the endpoints, which the delete alone does not return
+            int[] endpoints = null;
+            if (detector != null) {
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_PREREQUISITE_ENDPOINTS)) {
+                    stmt.setInt(1, prerequisiteId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            endpoints = new int[] { rs.getInt(1), rs.getInt(2) };
+                        }
+                    }
+                }
+            }
             
-            int affectedRows = stmt.executeUpdate();
-            logger.info("Prerequisite deleted: {} rows affected", affectedRows);
-            return affectedRows > 0;
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_PREREQUISITE)) {
+                stmt.setInt(1, prerequisiteId);
+                
+                int affectedRows = stmt.executeUpdate();
+                logger.info("Prerequisite deleted: {} rows affected", affectedRows);
+                if (affectedRows > 0 && endpoints != null) {
+                    detector.removeEdge(endpoints[0], endpoints[1]);
+                }
+                return affectedRows > 0;
+            }
         }
     }
 
@@ -183,10 +717,35 @@ public class PrerequisiteDAO {
             
             int affectedRows = stmt.executeUpdate();
             logger.info("Prerequisites deleted for course {}: {} rows affected", courseId, affectedRows);
+            
+            IncrementalCycleDetector detector = cycleDetector;
+            if (detector != null) {
+                detector.removePrerequisitesOf(courseId);
+            }
             return affectedRows > 0;
         }
     }
 
+    private void setInsertParameters(PreparedStatement stmt, Prerequisite prerequisite) throws SQLException {
+        stmt.setInt(1, prerequisite.getCourseId());
+        stmt.setInt(2, prerequisite.getPrerequisiteCourseId());
+        stmt.setBoolean(3, prerequisite.isRequired());
+        setNullableInt(stmt, 4, prerequisite.getAlternativeGroup());
+    }
+
+    private static void setNullableInt(PreparedStatement stmt, int index, Integer value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.INTEGER);
+        } else {
+            stmt.setInt(index, value);
+        }
+    }
+
+    private static Integer getNullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
     /**
      * Map ResultSet to Prerequisite object (basic)
      */
@@ -196,6 +755,7 @@ public class PrerequisiteDAO {
         prerequisite.setCourseId(rs.getInt("course_id"));
         prerequisite.setPrerequisiteCourseId(rs.getInt("prerequisite_course_id"));
         prerequisite.setRequired(rs.getBoolean("is_required"));
+        prerequisite.setAlternativeGroup(getNullableInt(rs, "alternative_group"));
         
         Timestamp createdAt = rs.getTimestamp("created_at");
         if (createdAt != null) {
@@ -222,6 +782,7 @@ public class PrerequisiteDAO {
         prerequisite.setCourseId(rs.getInt("course_id"));
         prerequisite.setPrerequisiteCourseId(rs.getInt("prerequisite_course_id"));
         prerequisite.setRequired(rs.getBoolean("is_required"));
+        prerequisite.setAlternativeGroup(getNullableInt(rs, "alternative_group"));
         
         Timestamp createdAt = rs.getTimestamp("created_at");
         if (createdAt != null) {
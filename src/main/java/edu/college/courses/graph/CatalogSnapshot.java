@@ -0,0 +1,198 @@
+package edu.college.courses.graph;
+
+import edu.college.courses.model.CatalogVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file holding a prerequisite graph snapshot and the catalog version it was taken at,
+ * so a process can start from disk instead of re-querying the whole catalog.
+ *
+ * Layout (little-endian): a header with magic, format version, the {@link CatalogVersion} and
+ * the course and edge counts; then the course ID, credit-hour and major-type arrays; the CSR
+ * prerequisite offsets, targets and groups; and a string table of name offsets followed by the
+ * UTF-8 bytes of every course name.
+ *
+ * The file is memory-mapped when opened, but the graph is not used in place: its arrays are
+ * copied onto the heap in bulk and the names decoded into strings. Every algorithm over a
+ * {@link PrerequisiteGraph} indexes plain {@code int[]} arrays and looks courses up by name
+ * through a hash map, and reading through {@code IntBuffer} views would slow all of them down
+ * to save one copy at memory speed. Opening therefore costs the page reads, that copy and the
+ * name decoding, which is still a small fraction of loading the catalog from MySQL.
+ */
+public final class CatalogSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    private static final int MAGIC = 0x50534343; // "CCSP"
+    // 3: catalog version timestamps in microseconds
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4 + 8 + 4 + 4;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Write a graph and the catalog version it reflects. The file is written next to the
+     * target and moved into place, so readers never see a partial snapshot.
+     */
+    public static void write(PrerequisiteGraph graph, CatalogVersion version, Path file) throws IOException {
+        long startTime = System.nanoTime();
+        int n = graph.size();
+        int m = graph.edgeCount();
+        byte[][] names = new byte[n][];
+        int nameBytes = 0;
+        for (int v = 0; v < n; v++) {
+            names[v] = graph.name(v).getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[v].length;
+        }
+
+        long size = HEADER_BYTES + 4L * n * 2 + align(n) + 4L * (n + 1) + 4L * m * 2 + 4L * (n + 1) + nameBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a snapshot: " + size + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION)
+              .putInt(version.getCourseCount()).putLong(version.getCoursesUpdatedAt())
+              .putInt(version.getPrerequisiteCount()).putLong(version.getPrerequisitesUpdatedAt())
+              .putInt(n).putInt(m);
+
+        for (int v = 0; v < n; v++) {
+            buffer.putInt(graph.courseId(v));
+        }
+        for (int v = 0; v < n; v++) {
+            buffer.putInt(graph.creditHours(v));
+        }
+        for (int v = 0; v < n; v++) {
+            buffer.put((byte) graph.majorType(v).ordinal());
+        }
+        buffer.position(buffer.position() + align(n) - n);
+        buffer.asIntBuffer().put(graph.prerequisiteOffsets);
+        buffer.position(buffer.position() + 4 * (n + 1));
+        buffer.asIntBuffer().put(graph.prerequisiteTargets);
+        buffer.position(buffer.position() + 4 * m);
+        buffer.asIntBuffer().put(graph.prerequisiteGroups);
+        buffer.position(buffer.position() + 4 * m);
+
+        int offset = 0;
+        buffer.putInt(offset);
+        for (byte[] name : names) {
+            offset += name.length;
+            buffer.putInt(offset);
+        }
+        for (byte[] name : names) {
+            buffer.put(name);
+        }
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Wrote catalog snapshot {} ({} courses, {} edges, {} KB) in {} ms",
+                   file, n, m, size / 1024, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Read only the catalog version of a snapshot, or null if the file is missing or not a snapshot
+     */
+    public static CatalogVersion readVersion(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            return header.remaining() == HEADER_BYTES ? readHeader(header) : null;
+        }
+    }
+
+    /**
+     * Open a snapshot and rebuild the graph from its mapped contents, copied onto the heap
+     */
+    public static PrerequisiteGraph open(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (readHeader(buffer) == null) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+
+            int[] courseIds = readInts(buffer, n);
+            int[] creditHours = readInts(buffer, n);
+            byte[] majorTypes = new byte[n];
+            buffer.get(majorTypes);
+            buffer.position(buffer.position() + align(n) - n);
+            int[] offsets = readInts(buffer, n + 1);
+            int[] targets = readInts(buffer, m);
+            int[] groups = readInts(buffer, m);
+
+            int[] nameOffsets = readInts(buffer, n + 1);
+            byte[] nameBytes = new byte[nameOffsets[n]];
+            buffer.get(nameBytes);
+            String[] names = new String[n];
+            for (int v = 0; v < n; v++) {
+                names[v] = new String(nameBytes, nameOffsets[v], nameOffsets[v + 1] - nameOffsets[v],
+                                      StandardCharsets.UTF_8);
+            }
+
+            PrerequisiteGraph graph = new PrerequisiteGraph(names, courseIds, creditHours, majorTypes,
+                                                            offsets, targets, groups);
+            logger.info("Opened catalog snapshot {} ({} courses, {} edges) in {} ms",
+                       file, n, m, (System.nanoTime() - startTime) / 1_000_000);
+            return graph;
+        } catch (RuntimeException e) {
+            // Truncated or corrupt file: buffer underflow or inconsistent arrays
+            throw new IOException("Corrupt catalog snapshot: " + file, e);
+        }
+    }
+
+    private static CatalogVersion readHeader(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        int courseCount = buffer.getInt();
+        long coursesUpdatedAt = buffer.getLong();
+        int prerequisiteCount = buffer.getInt();
+        long prerequisitesUpdatedAt = buffer.getLong();
+        return new CatalogVersion(courseCount, coursesUpdatedAt, prerequisiteCount, prerequisitesUpdatedAt);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    /**
+     * Bytes taken by the major-type array, padded so the int arrays after it stay aligned
+     */
+    private static int align(int n) {
+        return (n + 3) & ~3;
+    }
+}
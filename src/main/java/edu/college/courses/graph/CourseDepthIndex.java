@@ -0,0 +1,214 @@
+package edu.college.courses.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-course depth and credit-weighted critical path, computed in one pass over the
+ * topological order.
+ *
+ * The depth of a course is the minimum number of terms of prerequisites a student needs
+ * before taking it: 0 for an entry-level course, otherwise one more than its deepest required
+ * prerequisite. Alternatives count by their shallowest member and optional prerequisites are
+ * ignored. The critical path is the heaviest such chain measured in credit hours, ending at and
+ * including the course itself. Courses on or behind a circular dependency have neither.
+ */
+public final class CourseDepthIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CourseDepthIndex.class);
+
+    /** Depth and credits of a course that is unknown or sits on or behind a cycle */
+    public static final int UNREACHABLE = -1;
+
+    private final PrerequisiteGraph graph;
+    private final int[] depths;
+    private final int[] pathCredits;
+    // Prerequisite preceding each course on its critical path, or -1
+    private final int[] pathPredecessors;
+
+    private CourseDepthIndex(PrerequisiteGraph graph, int[] depths, int[] pathCredits, int[] pathPredecessors) {
+        this.graph = graph;
+        this.depths = depths;
+        this.pathCredits = pathCredits;
+        this.pathPredecessors = pathPredecessors;
+    }
+
+    /**
+     * Compute depths and critical paths of a graph snapshot
+     */
+    public static CourseDepthIndex build(PrerequisiteGraph graph) {
+        long startTime = System.nanoTime();
+        int n = graph.size();
+        int[] depths = new int[n];
+        int[] pathCredits = new int[n];
+        int[] pathPredecessors = new int[n];
+        Arrays.fill(depths, UNREACHABLE);
+        Arrays.fill(pathCredits, UNREACHABLE);
+        Arrays.fill(pathPredecessors, -1);
+
+        // Scratch for one course: its requirement clauses in order of first appearance, and an
+        // open-addressing table from alternative group to clause, cleared after each course
+        int[] clauseDepths = new int[8];
+        int[] clauseCredits = new int[8];
+        int[] clausePredecessors = new int[8];
+        int[] clauseGroups = new int[8];
+        int[] clauseSlots = new int[8];
+        int[] groupTable = new int[16];
+
+        for (int v : graph.topologicalOrder()) {
+            int count = graph.prerequisiteCount(v);
+            if (clauseDepths.length < count) {
+                clauseDepths = new int[count];
+                clauseCredits = new int[count];
+                clausePredecessors = new int[count];
+                clauseGroups = new int[count];
+                clauseSlots = new int[count];
+            }
+            if (groupTable.length < 2 * count) {
+                groupTable = new int[Integer.highestOneBit(count) << 2];
+            }
+            int mask = groupTable.length - 1;
+
+            // Fold each clause to its easiest member: shallowest for depth, lightest for credits
+            int clauses = 0;
+            for (int i = 0; i < count; i++) {
+                int group = graph.prerequisiteGroup(v, i);
+                if (group == PrerequisiteGraph.OPTIONAL) {
+                    continue;
+                }
+                int p = graph.prerequisite(v, i);
+                int clause = -1;
+                if (group != PrerequisiteGraph.STANDALONE) {
+                    int slot = (group * 0x9E3779B9) >>> 16 & mask;
+                    while (groupTable[slot] != 0 && clauseGroups[groupTable[slot] - 1] != group) {
+                        slot = (slot + 1) & mask;
+                    }
+                    if (groupTable[slot] != 0) {
+                        clause = groupTable[slot] - 1;
+                    } else {
+                        groupTable[slot] = clauses + 1;
+                        clauseSlots[clauses] = slot;
+                    }
+                }
+                if (clause < 0) {
+                    clause = clauses++;
+                    clauseGroups[clause] = group;
+                    clauseDepths[clause] = depths[p];
+                    clauseCredits[clause] = pathCredits[p];
+                    clausePredecessors[clause] = p;
+                } else {
+                    clauseDepths[clause] = Math.min(clauseDepths[clause], depths[p]);
+                    if (pathCredits[p] < clauseCredits[clause]) {
+                        clauseCredits[clause] = pathCredits[p];
+                        clausePredecessors[clause] = p;
+                    }
+                }
+            }
+
+            int depth = 0;
+            int credits = 0;
+            int predecessor = -1;
+            for (int c = 0; c < clauses; c++) {
+                depth = Math.max(depth, clauseDepths[c] + 1);
+                if (predecessor < 0 || clauseCredits[c] > credits) {
+                    credits = clauseCredits[c];
+                    predecessor = clausePredecessors[c];
+                }
+                if (clauseGroups[c] != PrerequisiteGraph.STANDALONE) {
+                    groupTable[clauseSlots[c]] = 0;
+                }
+            }
+            depths[v] = depth;
+            pathCredits[v] = credits + graph.creditHours(v);
+            pathPredecessors[v] = predecessor;
+        }
+
+        logger.info("Built depth index for {} courses in {} ms",
+                   n, (System.nanoTime() - startTime) / 1_000_000);
+        return new CourseDepthIndex(graph, depths, pathCredits, pathPredecessors);
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Minimum number of terms before a course can be taken, or {@link #UNREACHABLE}
+     */
+    public int depth(int course) {
+        return depths[course];
+    }
+
+    public int depth(String courseName) {
+        int course = graph.indexOf(courseName);
+        return course >= 0 ? depths[course] : UNREACHABLE;
+    }
+
+    /**
+     * Credit hours on the critical path to a course, including the course itself,
+     * or {@link #UNREACHABLE}
+     */
+    public int criticalPathCredits(int course) {
+        return pathCredits[course];
+    }
+
+    public int criticalPathCredits(String courseName) {
+        int course = graph.indexOf(courseName);
+        return course >= 0 ? pathCredits[course] : UNREACHABLE;
+    }
+
+    /**
+     * Courses on the critical path to a course, from an entry-level course up to the course
+     * itself; empty if the course is unknown or on a cycle
+     */
+    public List<String> criticalPath(String courseName) {
+        int course = graph.indexOf(courseName);
+        if (course < 0 || pathCredits[course] == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+        List<String> path = new ArrayList<>();
+        for (int v = course; v >= 0; v = pathPredecessors[v]) {
+            path.add(graph.name(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Largest depth of any course, or {@link #UNREACHABLE} if no course has one
+     */
+    public int maxDepth() {
+        int max = UNREACHABLE;
+        for (int depth : depths) {
+            max = Math.max(max, depth);
+        }
+        return max;
+    }
+
+    /**
+     * Up to {@code limit} courses ordered by depth, then critical-path credits, both descending
+     */
+    public int[] deepestCourses(int limit) {
+        int n = graph.size();
+        long[] keyed = new long[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (depths[v] != UNREACHABLE) {
+                // Depth and credits fit in 15 and 16 bits in any real catalog; ties keep index order
+                long key = ((long) Math.min(depths[v], 0x7FFF) << 16) | Math.min(pathCredits[v], 0xFFFF);
+                keyed[count++] = (~key << 32) | v;
+            }
+        }
+        Arrays.sort(keyed, 0, count);
+
+        int[] courses = new int[Math.min(limit, count)];
+        for (int i = 0; i < courses.length; i++) {
+            courses[i] = (int) keyed[i];
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,165 @@
+package edu.college.courses.graph;
+
+import edu.college.courses.model.PrerequisiteExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prerequisite expressions of every course compiled into flat arrays, for allocation-free
+ * eligibility checks against a student's completed courses.
+ *
+ * A course's requirement is an AND of clauses and each clause an OR of courses. Clauses of
+ * course {@code v} are {@code courseClauseOffsets[v] .. courseClauseOffsets[v + 1]} and the
+ * members of clause {@code c} are {@code clauseMembers[clauseOffsets[c] .. clauseOffsets[c + 1]]}.
+ * Completed courses are passed as a bitset of dense course indexes (see {@link #newCourseSet()}).
+ */
+public final class EligibilityEvaluator {
+    private final PrerequisiteGraph graph;
+    private final int[] courseClauseOffsets;
+    private final int[] clauseOffsets;
+    private final int[] clauseMembers;
+
+    private EligibilityEvaluator(PrerequisiteGraph graph, int[] courseClauseOffsets,
+                                 int[] clauseOffsets, int[] clauseMembers) {
+        this.graph = graph;
+        this.courseClauseOffsets = courseClauseOffsets;
+        this.clauseOffsets = clauseOffsets;
+        this.clauseMembers = clauseMembers;
+    }
+
+    /**
+     * Compile the requirement of every course in a graph snapshot
+     */
+    public static EligibilityEvaluator compile(PrerequisiteGraph graph) {
+        int n = graph.size();
+        int[] courseClauseOffsets = new int[n + 1];
+        int[] clauseOffsets = new int[graph.edgeCount() + 1];
+        int[] clauseMembers = new int[graph.edgeCount()];
+        int clauseCount = 0;
+        int memberCount = 0;
+        long[] edges = new long[16];
+
+        for (int v = 0; v < n; v++) {
+            // Sort this course's required edges by group so each OR group is contiguous
+            int count = 0;
+            int degree = graph.prerequisiteCount(v);
+            if (edges.length < degree) {
+                edges = new long[degree];
+            }
+            for (int i = 0; i < degree; i++) {
+                int group = graph.prerequisiteGroup(v, i);
+                if (group != PrerequisiteGraph.OPTIONAL) {
+                    edges[count++] = ((long) group << 32) | graph.prerequisite(v, i);
+                }
+            }
+            Arrays.sort(edges, 0, count);
+
+            int previousGroup = -1;
+            for (int i = 0; i < count; i++) {
+                int group = (int) (edges[i] >>> 32);
+                if (group == PrerequisiteGraph.STANDALONE || group != previousGroup) {
+                    clauseOffsets[clauseCount++] = memberCount;
+                }
+                clauseMembers[memberCount++] = (int) edges[i];
+                previousGroup = group;
+            }
+            courseClauseOffsets[v + 1] = clauseCount;
+        }
+        clauseOffsets[clauseCount] = memberCount;
+
+        return new EligibilityEvaluator(graph, courseClauseOffsets,
+                                        Arrays.copyOf(clauseOffsets, clauseCount + 1),
+                                        Arrays.copyOf(clauseMembers, memberCount));
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * An empty bitset sized for this catalog
+     */
+    public long[] newCourseSet() {
+        return new long[(graph.size() + 63) >>> 6];
+    }
+
+    /**
+     * Mark a course in a bitset
+     */
+    public static void add(long[] courseSet, int course) {
+        courseSet[course >>> 6] |= 1L << course;
+    }
+
+    /**
+     * True if a course is marked in a bitset
+     */
+    public static boolean contains(long[] courseSet, int course) {
+        return (courseSet[course >>> 6] & (1L << course)) != 0;
+    }
+
+    /**
+     * Build a bitset from course names, ignoring names not in the catalog
+     */
+    public long[] toCourseSet(Collection<String> courseNames) {
+        long[] courseSet = newCourseSet();
+        for (String name : courseNames) {
+            int course = graph.indexOf(name);
+            if (course >= 0) {
+                add(courseSet, course);
+            }
+        }
+        return courseSet;
+    }
+
+    /**
+     * True if every clause of a course's requirement has a completed member
+     */
+    public boolean isEligible(int course, long[] completed) {
+        for (int c = courseClauseOffsets[course]; c < courseClauseOffsets[course + 1]; c++) {
+            boolean satisfied = false;
+            for (int m = clauseOffsets[c]; m < clauseOffsets[c + 1]; m++) {
+                int member = clauseMembers[m];
+                if ((completed[member >>> 6] & (1L << member)) != 0) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write every course that is not completed yet and whose requirement is met into
+     * {@code out} (which must hold {@code getGraph().size()} entries) and return how many
+     */
+    public int eligibleCourses(long[] completed, int[] out) {
+        int count = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            if (!contains(completed, v) && isEligible(v, completed)) {
+                out[count++] = v;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The compiled requirement of a course as an expression
+     */
+    public PrerequisiteExpression expressionOf(int course) {
+        List<List<String>> groups = new ArrayList<>();
+        for (int c = courseClauseOffsets[course]; c < courseClauseOffsets[course + 1]; c++) {
+            List<String> group = new ArrayList<>();
+            for (int m = clauseOffsets[c]; m < clauseOffsets[c + 1]; m++) {
+                group.add(graph.name(clauseMembers[m]));
+            }
+            groups.add(group);
+        }
+        return new PrerequisiteExpression(graph.name(course), groups);
+    }
+}
@@ -0,0 +1,374 @@
+package edu.college.courses.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mutable prerequisite graph that rejects edges closing a cycle, using the Pearce-Kelly
+ * dynamic topological order.
+ *
+ * Every course holds a position in a topological order where each prerequisite comes
+ * before the courses requiring it. Adding an edge that already agrees with the order is
+ * O(1). Otherwise only the courses positioned between the two endpoints are searched:
+ * if the new prerequisite is reachable from the course, the edge would close a cycle and is
+ * rejected; if not, just that region is reordered. Courses are keyed by database course ID.
+ */
+public final class IncrementalCycleDetector {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalCycleDetector.class);
+
+    private final Map<Integer, Integer> nodeIndex = new HashMap<>();
+    private int[] order = new int[16];
+    private int nodeCount;
+    // New courses take a free position at either end of the order
+    private int nextOrder;
+    private int previousOrder = -1;
+
+    // Adjacency per node: prerequisites (incoming) and dependents (outgoing)
+    private int[][] prerequisites = new int[16][];
+    private int[] prerequisiteCounts = new int[16];
+    private int[][] dependents = new int[16][];
+    private int[] dependentCounts = new int[16];
+    private int edgeCount;
+    private int rejectedOnLoad;
+
+    // Scratch space for searches, reused across calls
+    private int[] mark = new int[16];
+    private int epoch;
+    private int[] stack = new int[16];
+    private int[] forward = new int[16];
+    private int[] backward = new int[16];
+
+    /**
+     * Build a detector from edges given as parallel course ID arrays. Edges that already
+     * close a cycle are left out and counted in {@link #getRejectedOnLoad()}.
+     */
+    public static IncrementalCycleDetector fromEdges(int[] courseIds, int[] prerequisiteCourseIds, int count) {
+        long startTime = System.nanoTime();
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        for (int e = 0; e < count; e++) {
+            detector.node(courseIds[e], false);
+            detector.node(prerequisiteCourseIds[e], false);
+        }
+
+        // Seed the order with a topological sort so the bulk of the edges link in O(1)
+        int n = detector.nodeCount;
+        int[] remaining = new int[n];
+        int[][] dependentsOf = new int[n][];
+        int[] dependentSizes = new int[n];
+        for (int e = 0; e < count; e++) {
+            int c = detector.nodeIndex.get(courseIds[e]);
+            int p = detector.nodeIndex.get(prerequisiteCourseIds[e]);
+            remaining[c]++;
+            dependentsOf[p] = append(dependentsOf[p], dependentSizes[p]++, c);
+        }
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (remaining[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = 0; i < dependentSizes[v]; i++) {
+                if (--remaining[dependentsOf[v][i]] == 0) {
+                    queue[tail++] = dependentsOf[v][i];
+                }
+            }
+        }
+        // Courses on or behind a cycle go last, in discovery order
+        boolean[] placed = new boolean[n];
+        for (int i = 0; i < tail; i++) {
+            placed[queue[i]] = true;
+        }
+        for (int v = 0; v < n && tail < n; v++) {
+            if (!placed[v]) {
+                queue[tail++] = v;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            detector.order[queue[i]] = i;
+        }
+
+        int rejected = 0;
+        for (int e = 0; e < count; e++) {
+            if (!detector.addEdge(courseIds[e], prerequisiteCourseIds[e])) {
+                rejected++;
+                logger.warn("Existing prerequisite {} -> {} closes a cycle and is not tracked",
+                           prerequisiteCourseIds[e], courseIds[e]);
+            }
+        }
+        detector.rejectedOnLoad = rejected;
+
+        logger.info("Cycle detector loaded {} courses and {} edges in {} ms ({} cyclic edges skipped)",
+                   detector.nodeCount, detector.edgeCount, (System.nanoTime() - startTime) / 1_000_000, rejected);
+        return detector;
+    }
+
+    /**
+     * Number of edges left out when loading because they already closed a cycle
+     */
+    public int getRejectedOnLoad() {
+        return rejectedOnLoad;
+    }
+
+    public synchronized int courseCount() {
+        return nodeCount;
+    }
+
+    public synchronized int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * True if the edge is tracked
+     */
+    public synchronized boolean containsEdge(int courseId, int prerequisiteCourseId) {
+        Integer c = nodeIndex.get(courseId);
+        Integer p = nodeIndex.get(prerequisiteCourseId);
+        return c != null && p != null && indexOf(prerequisites[c], prerequisiteCounts[c], p) >= 0;
+    }
+
+    /**
+     * True if adding the edge would close a cycle; the graph is not changed
+     */
+    public synchronized boolean wouldCreateCycle(int courseId, int prerequisiteCourseId) {
+        if (courseId == prerequisiteCourseId) {
+            return true;
+        }
+        Integer c = nodeIndex.get(courseId);
+        Integer p = nodeIndex.get(prerequisiteCourseId);
+        if (c == null || p == null || order[p] < order[c]) {
+            return false;
+        }
+        return searchForward(c, order[p]) < 0;
+    }
+
+    /**
+     * Add an edge unless it would close a cycle. Returns false if the edge was rejected;
+     * an edge that is already present is accepted without change.
+     */
+    public synchronized boolean addEdge(int courseId, int prerequisiteCourseId) {
+        if (courseId == prerequisiteCourseId) {
+            return false;
+        }
+        // A course seen for the first time goes where the edge already agrees with the order
+        int c = node(courseId, false);
+        int p = node(prerequisiteCourseId, true);
+        if (indexOf(prerequisites[c], prerequisiteCounts[c], p) >= 0) {
+            return true;
+        }
+
+        if (order[p] > order[c]) {
+            // Affected region is order[c] .. order[p]
+            int forwardCount = searchForward(c, order[p]);
+            if (forwardCount < 0) {
+                return false;
+            }
+            int backwardCount = searchBackward(p, order[c]);
+            reorder(forwardCount, backwardCount);
+        }
+
+        prerequisites[c] = append(prerequisites[c], prerequisiteCounts[c]++, p);
+        dependents[p] = append(dependents[p], dependentCounts[p]++, c);
+        edgeCount++;
+        return true;
+    }
+
+    /**
+     * Remove an edge if present; removing an edge never invalidates the order
+     */
+    public synchronized void removeEdge(int courseId, int prerequisiteCourseId) {
+        Integer c = nodeIndex.get(courseId);
+        Integer p = nodeIndex.get(prerequisiteCourseId);
+        if (c == null || p == null) {
+            return;
+        }
+        if (remove(prerequisites[c], prerequisiteCounts[c], p)) {
+            prerequisiteCounts[c]--;
+            remove(dependents[p], dependentCounts[p], c);
+            dependentCounts[p]--;
+            edgeCount--;
+        }
+    }
+
+    /**
+     * Remove every prerequisite edge of a course
+     */
+    public synchronized void removePrerequisitesOf(int courseId) {
+        Integer c = nodeIndex.get(courseId);
+        if (c == null) {
+            return;
+        }
+        for (int i = 0; i < prerequisiteCounts[c]; i++) {
+            int p = prerequisites[c][i];
+            remove(dependents[p], dependentCounts[p], c);
+            dependentCounts[p]--;
+            edgeCount--;
+        }
+        prerequisiteCounts[c] = 0;
+    }
+
+    /**
+     * Remove every edge touching a course, e.g. after the course was deleted
+     */
+    public synchronized void removeCourse(int courseId) {
+        Integer v = nodeIndex.get(courseId);
+        if (v == null) {
+            return;
+        }
+        removePrerequisitesOf(courseId);
+        for (int i = 0; i < dependentCounts[v]; i++) {
+            int c = dependents[v][i];
+            remove(prerequisites[c], prerequisiteCounts[c], v);
+            prerequisiteCounts[c]--;
+            edgeCount--;
+        }
+        dependentCounts[v] = 0;
+    }
+
+    /**
+     * Depth-first search over dependents from {@code start}, limited to courses positioned at or
+     * before {@code upperBound}. Fills {@link #forward} and returns its size, or -1 if the course
+     * at {@code upperBound} was reached (a cycle).
+     */
+    private int searchForward(int start, int upperBound) {
+        epoch++;
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = epoch;
+        while (top > 0) {
+            int v = stack[--top];
+            forward = append(forward, count++, v);
+            for (int i = 0; i < dependentCounts[v]; i++) {
+                int w = dependents[v][i];
+                if (order[w] == upperBound) {
+                    return -1;
+                }
+                if (mark[w] != epoch && order[w] < upperBound) {
+                    mark[w] = epoch;
+                    stack = append(stack, top++, w);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Depth-first search over prerequisites from {@code start}, limited to courses positioned
+     * after {@code lowerBound}. Fills {@link #backward} and returns its size.
+     */
+    private int searchBackward(int start, int lowerBound) {
+        epoch++;
+        int count = 0;
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = epoch;
+        while (top > 0) {
+            int v = stack[--top];
+            backward = append(backward, count++, v);
+            for (int i = 0; i < prerequisiteCounts[v]; i++) {
+                int w = prerequisites[v][i];
+                if (mark[w] != epoch && order[w] > lowerBound) {
+                    mark[w] = epoch;
+                    stack = append(stack, top++, w);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Give the backward set (the new prerequisite and what it needs) the lowest of the
+     * affected positions, followed by the forward set, each keeping its relative order
+     */
+    private void reorder(int forwardCount, int backwardCount) {
+        sortByOrder(backward, backwardCount);
+        sortByOrder(forward, forwardCount);
+
+        int total = backwardCount + forwardCount;
+        int[] slots = new int[total];
+        for (int i = 0; i < backwardCount; i++) {
+            slots[i] = order[backward[i]];
+        }
+        for (int i = 0; i < forwardCount; i++) {
+            slots[backwardCount + i] = order[forward[i]];
+        }
+        Arrays.sort(slots);
+
+        for (int i = 0; i < backwardCount; i++) {
+            order[backward[i]] = slots[i];
+        }
+        for (int i = 0; i < forwardCount; i++) {
+            order[forward[i]] = slots[backwardCount + i];
+        }
+    }
+
+    private void sortByOrder(int[] nodes, int count) {
+        long[] keyed = new long[count];
+        for (int i = 0; i < count; i++) {
+            keyed[i] = ((long) order[nodes[i]] << 32) | nodes[i];
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < count; i++) {
+            nodes[i] = (int) keyed[i];
+        }
+    }
+
+    /**
+     * Dense node of a course, created at the start or end of the order if new
+     */
+    private int node(int courseId, boolean first) {
+        Integer existing = nodeIndex.get(courseId);
+        if (existing != null) {
+            return existing;
+        }
+        if (nodeCount == order.length) {
+            int capacity = nodeCount * 2;
+            order = Arrays.copyOf(order, capacity);
+            prerequisites = Arrays.copyOf(prerequisites, capacity);
+            prerequisiteCounts = Arrays.copyOf(prerequisiteCounts, capacity);
+            dependents = Arrays.copyOf(dependents, capacity);
+            dependentCounts = Arrays.copyOf(dependentCounts, capacity);
+            mark = Arrays.copyOf(mark, capacity);
+        }
+        int v = nodeCount++;
+        order[v] = first ? previousOrder-- : nextOrder++;
+        nodeIndex.put(courseId, v);
+        return v;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (array == null) {
+            array = new int[4];
+        } else if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+        array[size] = value;
+        return array;
+    }
+
+    private static int indexOf(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean remove(int[] array, int size, int value) {
+        int i = indexOf(array, size, value);
+        if (i < 0) {
+            return false;
+        }
+        array[i] = array[size - 1];
+        return true;
+    }
+}
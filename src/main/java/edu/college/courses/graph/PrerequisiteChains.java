@@ -0,0 +1,206 @@
+package edu.college.courses.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Prerequisite chains of a graph snapshot: every path from a course down through its
+ * prerequisites to a course that has none.
+ *
+ * On catalogs where many courses funnel through the same prerequisite the number of chains
+ * grows exponentially, so chains are never collected up front. {@link #countChains(int)} sums
+ * the counts of a course's prerequisites, memoized per course and shared across queries, and
+ * {@link #iterator(int, int)} walks the chains one at a time with an explicit stack. Counts are
+ * exact on an acyclic graph; edges that close a cycle are not followed, matching the iterator.
+ */
+public final class PrerequisiteChains {
+    /** Depth limit that follows every chain to its end */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final long NOT_COUNTED = -1;
+
+    private final PrerequisiteGraph graph;
+    private final long[] chainCounts;
+    private final boolean[] onStack;
+
+    public PrerequisiteChains(PrerequisiteGraph graph) {
+        this.graph = graph;
+        this.chainCounts = new long[graph.size()];
+        this.onStack = new boolean[graph.size()];
+        Arrays.fill(chainCounts, NOT_COUNTED);
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of chains starting at a course, or 0 if the course is unknown
+     */
+    public long countChains(String courseName) {
+        int course = graph.indexOf(courseName);
+        return course >= 0 ? countChains(course) : 0;
+    }
+
+    /**
+     * Number of chains starting at a course, saturating at {@code Long.MAX_VALUE}
+     */
+    public synchronized long countChains(int course) {
+        if (chainCounts[course] != NOT_COUNTED) {
+            return chainCounts[course];
+        }
+
+        // Post-order walk over the courses not counted yet; a course is counted once all of
+        // its prerequisites are, except those still on the stack (edges closing a cycle)
+        int[] stack = new int[16];
+        int[] nextPrerequisite = new int[16];
+        int top = 0;
+        stack[top++] = course;
+        onStack[course] = true;
+        while (top > 0) {
+            int v = stack[top - 1];
+            int i = nextPrerequisite[top - 1];
+            if (i < graph.prerequisiteCount(v)) {
+                nextPrerequisite[top - 1]++;
+                int p = graph.prerequisite(v, i);
+                if (chainCounts[p] == NOT_COUNTED && !onStack[p]) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                        nextPrerequisite = Arrays.copyOf(nextPrerequisite, top * 2);
+                    }
+                    stack[top] = p;
+                    nextPrerequisite[top] = 0;
+                    top++;
+                    onStack[p] = true;
+                }
+                continue;
+            }
+
+            long count = graph.prerequisiteCount(v) == 0 ? 1 : 0;
+            for (int e = 0; e < graph.prerequisiteCount(v); e++) {
+                long prerequisiteCount = chainCounts[graph.prerequisite(v, e)];
+                if (prerequisiteCount > 0) {
+                    count = count > Long.MAX_VALUE - prerequisiteCount ? Long.MAX_VALUE : count + prerequisiteCount;
+                }
+            }
+            chainCounts[v] = count;
+            onStack[v] = false;
+            top--;
+        }
+        return chainCounts[course];
+    }
+
+    /**
+     * Chains starting at a course, produced lazily. A chain that reaches {@code maxDepth}
+     * courses is returned at that length without following it further. Each iterator
+     * keeps its own state, so several may run at once.
+     */
+    public Iterator<List<String>> iterator(int course, int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Max depth must be positive: " + maxDepth);
+        }
+        return new ChainIterator(course, maxDepth);
+    }
+
+    /**
+     * Stream of at most {@code limit} chains starting at a course, or an empty stream
+     * if the course is unknown
+     */
+    public Stream<List<String>> stream(String courseName, int maxDepth, long limit) {
+        int course = graph.indexOf(courseName);
+        if (course < 0) {
+            return Stream.empty();
+        }
+        Spliterator<List<String>> spliterator = Spliterators.spliteratorUnknownSize(
+                iterator(course, maxDepth), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).limit(limit);
+    }
+
+    /**
+     * Depth-first walk holding the current chain on a stack; only emitted chains are copied
+     */
+    private final class ChainIterator implements Iterator<List<String>> {
+        private final int maxDepth;
+        private final boolean[] onChain = new boolean[graph.size()];
+        private final List<String> chain = new ArrayList<>();
+        private int[] courses = new int[16];
+        private int[] nextPrerequisite = new int[16];
+        private int top;
+        private List<String> pending;
+
+        ChainIterator(int course, int maxDepth) {
+            this.maxDepth = maxDepth;
+            if (push(course)) {
+                pending = Collections.unmodifiableList(new ArrayList<>(chain));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null) {
+                pending = advance();
+            }
+            return pending != null;
+        }
+
+        @Override
+        public List<String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> result = pending;
+            pending = null;
+            return result;
+        }
+
+        private List<String> advance() {
+            while (top > 0) {
+                int d = top - 1;
+                int v = courses[d];
+                if (top >= maxDepth || nextPrerequisite[d] >= graph.prerequisiteCount(v)) {
+                    pop();
+                    continue;
+                }
+                int p = graph.prerequisite(v, nextPrerequisite[d]++);
+                if (onChain[p]) {
+                    // Circular dependency: the chain does not continue through p
+                    continue;
+                }
+                if (push(p)) {
+                    return Collections.unmodifiableList(new ArrayList<>(chain));
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Extend the chain by a course; returns true if the chain ends there
+         */
+        private boolean push(int course) {
+            if (top == courses.length) {
+                courses = Arrays.copyOf(courses, top * 2);
+                nextPrerequisite = Arrays.copyOf(nextPrerequisite, top * 2);
+            }
+            courses[top] = course;
+            nextPrerequisite[top] = 0;
+            top++;
+            onChain[course] = true;
+            chain.add(graph.name(course));
+            return graph.prerequisiteCount(course) == 0 || top >= maxDepth;
+        }
+
+        private void pop() {
+            top--;
+            onChain[courses[top]] = false;
+            chain.remove(chain.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package edu.college.courses.graph;
+
+import edu.college.courses.dao.CourseDAO;
+import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.model.Course;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable in-memory snapshot of the prerequisite graph.
+ *
+ * Courses are interned to dense indexes {@code 0..size()-1}. Both edge directions are
+ * stored in compressed-sparse-row form: the prerequisites of course {@code v} are
+ * {@code prerequisiteTargets[prerequisiteOffsets[v] .. prerequisiteOffsets[v + 1])} and the
+ * courses requiring {@code v} are laid out the same way in the dependent arrays.
+ */
+public final class PrerequisiteGraph {
+    private static final Logger logger = LoggerFactory.getLogger(PrerequisiteGraph.class);
+
+    /** Requirement group of a prerequisite that is not required */
+    public static final int OPTIONAL = -1;
+    /** Requirement group of a prerequisite that is required on its own */
+    public static final int STANDALONE = 0;
+
+    private static final Course.MajorType[] MAJOR_TYPES = Course.MajorType.values();
+
+    private final String[] names;
+    private final int[] courseIds;
+    private final int[] creditHours;
+    private final byte[] majorTypes;
+    private final Map<String, Integer> nameIndex;
+
+    // Course IDs in ascending order and the dense index of each, for binary search
+    private final int[] sortedCourseIds;
+    private final int[] sortedCourseIndexes;
+
+    final int[] prerequisiteOffsets;
+    final int[] prerequisiteTargets;
+    // Parallel to prerequisiteTargets: OPTIONAL, STANDALONE or a positive alternative group
+    final int[] prerequisiteGroups;
+    final int[] dependentOffsets;
+    final int[] dependentTargets;
+
+    PrerequisiteGraph(String[] names, int[] courseIds, int[] creditHours, byte[] majorTypes,
+                              int[] prerequisiteOffsets, int[] prerequisiteTargets, int[] prerequisiteGroups) {
+        this.names = names;
+        this.courseIds = courseIds;
+        this.creditHours = creditHours;
+        this.majorTypes = majorTypes;
+        this.prerequisiteOffsets = prerequisiteOffsets;
+        this.prerequisiteTargets = prerequisiteTargets;
+        this.prerequisiteGroups = prerequisiteGroups;
+
+        int n = names.length;
+        this.nameIndex = new HashMap<>(n * 2);
+        for (int v = 0; v < n; v++) {
+            nameIndex.put(names[v], v);
+        }
+
+        long[] idPairs = new long[n];
+        for (int v = 0; v < n; v++) {
+            idPairs[v] = ((long) courseIds[v] << 32) | v;
+        }
+        Arrays.sort(idPairs);
+        this.sortedCourseIds = new int[n];
+        this.sortedCourseIndexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedCourseIds[i] = (int) (idPairs[i] >> 32);
+            sortedCourseIndexes[i] = (int) idPairs[i];
+        }
+
+        // Reverse adjacency via counting sort over the forward edges
+        this.dependentOffsets = new int[n + 1];
+        this.dependentTargets = new int[prerequisiteTargets.length];
+        for (int target : prerequisiteTargets) {
+            dependentOffsets[target + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            dependentOffsets[v + 1] += dependentOffsets[v];
+        }
+        int[] cursor = Arrays.copyOf(dependentOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = prerequisiteOffsets[v]; e < prerequisiteOffsets[v + 1]; e++) {
+                dependentTargets[cursor[prerequisiteTargets[e]]++] = v;
+            }
+        }
+    }
+
+    /**
+     * Load a snapshot of every course and prerequisite edge
+     */
+    public static PrerequisiteGraph load(CourseDAO courseDAO, PrerequisiteDAO prerequisiteDAO) throws SQLException {
+        long startTime = System.nanoTime();
+        Builder builder = new Builder();
+        for (Course course : courseDAO.findAll()) {
+            builder.addCourse(course.getCourseId(), course.getCourseName(),
+                              course.getCreditHours(), course.getMajorType());
+        }
+        prerequisiteDAO.forEachEdge((int courseId, int prerequisiteCourseId, boolean required, int group) ->
+                builder.addEdge(courseId, prerequisiteCourseId, required, group));
+        PrerequisiteGraph graph = builder.build();
+        logger.info("Loaded prerequisite graph: {} courses, {} edges in {} ms",
+                   graph.size(), graph.edgeCount(), (System.nanoTime() - startTime) / 1_000_000);
+        return graph;
+    }
+
+    /**
+     * Number of courses
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Number of prerequisite edges
+     */
+    public int edgeCount() {
+        return prerequisiteTargets.length;
+    }
+
+    /**
+     * Dense index of a course name, or -1 if the course is unknown
+     */
+    public int indexOf(String courseName) {
+        Integer index = nameIndex.get(courseName);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Dense index of a database course ID, or -1 if the course is unknown
+     */
+    public int indexOfCourseId(int courseId) {
+        int i = Arrays.binarySearch(sortedCourseIds, courseId);
+        return i >= 0 ? sortedCourseIndexes[i] : -1;
+    }
+
+    public String name(int course) {
+        return names[course];
+    }
+
+    public int courseId(int course) {
+        return courseIds[course];
+    }
+
+    public int creditHours(int course) {
+        return creditHours[course];
+    }
+
+    public Course.MajorType majorType(int course) {
+        return MAJOR_TYPES[majorTypes[course]];
+    }
+
+    /**
+     * Number of direct prerequisites of a course
+     */
+    public int prerequisiteCount(int course) {
+        return prerequisiteOffsets[course + 1] - prerequisiteOffsets[course];
+    }
+
+    /**
+     * The i-th direct prerequisite of a course
+     */
+    public int prerequisite(int course, int i) {
+        return prerequisiteTargets[prerequisiteOffsets[course] + i];
+    }
+
+    /**
+     * Requirement group of the i-th direct prerequisite of a course: {@link #OPTIONAL},
+     * {@link #STANDALONE}, or a positive group shared by alternatives of each other
+     */
+    public int prerequisiteGroup(int course, int i) {
+        return prerequisiteGroups[prerequisiteOffsets[course] + i];
+    }
+
+    /**
+     * Number of courses that directly require a course
+     */
+    public int dependentCount(int course) {
+        return dependentOffsets[course + 1] - dependentOffsets[course];
+    }
+
+    /**
+     * The i-th course that directly requires a course
+     */
+    public int dependent(int course, int i) {
+        return dependentTargets[dependentOffsets[course] + i];
+    }
+
+    /**
+     * Courses in topological order, every course after all of its prerequisites (Kahn's algorithm).
+     * Courses on or downstream of a circular dependency never become ready and are left out,
+     * so the result is shorter than {@link #size()} exactly when the graph has a cycle.
+     */
+    public int[] topologicalOrder() {
+        int n = size();
+        int[] remaining = new int[n];
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            remaining[v] = prerequisiteCount(v);
+            if (remaining[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int v = order[head++];
+            for (int e = dependentOffsets[v]; e < dependentOffsets[v + 1]; e++) {
+                int dependent = dependentTargets[e];
+                if (--remaining[dependent] == 0) {
+                    order[tail++] = dependent;
+                }
+            }
+        }
+        return tail == n ? order : Arrays.copyOf(order, tail);
+    }
+
+    /**
+     * Materialize a course as a model object (description is not kept in the snapshot)
+     */
+    public Course toCourse(int course) {
+        Course result = new Course(names[course], creditHours[course], majorType(course), null);
+        result.setCourseId(courseIds[course]);
+        return result;
+    }
+
+    /**
+     * Incrementally collects courses and edges, keyed by database course ID
+     */
+    public static class Builder {
+        private String[] names = new String[16];
+        private int[] courseIds = new int[16];
+        private int[] creditHours = new int[16];
+        private byte[] majorTypes = new byte[16];
+        private int courseCount;
+
+        private int[] edgeCourses = new int[16];
+        private int[] edgePrerequisites = new int[16];
+        private int[] edgeGroups = new int[16];
+        private int edgeCount;
+
+        public Builder addCourse(int courseId, String name, int credits, Course.MajorType majorType) {
+            if (courseCount == names.length) {
+                int capacity = courseCount * 2;
+                names = Arrays.copyOf(names, capacity);
+                courseIds = Arrays.copyOf(courseIds, capacity);
+                creditHours = Arrays.copyOf(creditHours, capacity);
+                majorTypes = Arrays.copyOf(majorTypes, capacity);
+            }
+            names[courseCount] = name;
+            courseIds[courseCount] = courseId;
+            creditHours[courseCount] = credits;
+            majorTypes[courseCount] = (byte) majorType.ordinal();
+            courseCount++;
+            return this;
+        }
+
+        public Builder addEdge(int courseId, int prerequisiteCourseId) {
+            return addEdge(courseId, prerequisiteCourseId, true, STANDALONE);
+        }
+
+        /**
+         * Add an edge; {@code alternativeGroup} 0 (or less) means required on its own
+         */
+        public Builder addEdge(int courseId, int prerequisiteCourseId, boolean required, int alternativeGroup) {
+            if (edgeCount == edgeCourses.length) {
+                int capacity = edgeCount * 2;
+                edgeCourses = Arrays.copyOf(edgeCourses, capacity);
+                edgePrerequisites = Arrays.copyOf(edgePrerequisites, capacity);
+                edgeGroups = Arrays.copyOf(edgeGroups, capacity);
+            }
+            edgeCourses[edgeCount] = courseId;
+            edgePrerequisites[edgeCount] = prerequisiteCourseId;
+            edgeGroups[edgeCount] = !required ? OPTIONAL : Math.max(alternativeGroup, STANDALONE);
+            edgeCount++;
+            return this;
+        }
+
+        public PrerequisiteGraph build() {
+            int n = courseCount;
+            Map<Integer, Integer> indexById = new HashMap<>(n * 2);
+            for (int v = 0; v < n; v++) {
+                indexById.put(courseIds[v], v);
+            }
+
+            // Resolve edge endpoints to dense indexes, dropping edges to unknown courses
+            int[] from = new int[edgeCount];
+            int[] to = new int[edgeCount];
+            int[] group = new int[edgeCount];
+            int m = 0;
+            for (int e = 0; e < edgeCount; e++) {
+                Integer course = indexById.get(edgeCourses[e]);
+                Integer prerequisite = indexById.get(edgePrerequisites[e]);
+                if (course == null || prerequisite == null) {
+                    logger.warn("Skipping prerequisite edge {} -> {} with unknown course",
+                               edgePrerequisites[e], edgeCourses[e]);
+                    continue;
+                }
+                from[m] = course;
+                to[m] = prerequisite;
+                group[m] = edgeGroups[e];
+                m++;
+            }
+
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] targets = new int[m];
+            int[] groups = new int[m];
+            int[] cursor = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < m; e++) {
+                int slot = cursor[from[e]]++;
+                targets[slot] = to[e];
+                groups[slot] = group[e];
+            }
+
+            return new PrerequisiteGraph(Arrays.copyOf(names, n), Arrays.copyOf(courseIds, n),
+                                         Arrays.copyOf(creditHours, n), Arrays.copyOf(majorTypes, n),
+                                         offsets, targets, groups);
+        }
+    }
+}
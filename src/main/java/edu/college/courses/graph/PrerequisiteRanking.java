@@ -0,0 +1,246 @@
+package edu.college.courses.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Importance scores of every course as a prerequisite, beyond its direct in-degree.
+ *
+ * The unlocked count of a course is the number of courses that require it directly or
+ * indirectly. It is computed in blocks of {@code 64 * BLOCK_WORDS} candidate courses: one pass
+ * over the topological order propagates, for every course, which candidates of the block it
+ * transitively requires, and blocks run in parallel. Memory stays at one block per worker instead
+ * of the full {@code size() * size()} closure.
+ *
+ * Centrality is PageRank over the reverse prerequisite graph, so a course gains rank from the
+ * courses that require it, split evenly over their prerequisites. It is iterated pull-style in
+ * parallel until the ranks change by less than {@link #TOLERANCE}.
+ */
+public final class PrerequisiteRanking {
+    private static final Logger logger = LoggerFactory.getLogger(PrerequisiteRanking.class);
+
+    public static final double DAMPING = 0.85;
+    public static final double TOLERANCE = 1e-9;
+    public static final int MAX_ITERATIONS = 100;
+
+    // Bitset words per block of candidate courses (1024 courses)
+    private static final int BLOCK_WORDS = 16;
+
+    private final PrerequisiteGraph graph;
+    private final int[] unlockedCounts;
+    private final double[] centrality;
+
+    private PrerequisiteRanking(PrerequisiteGraph graph, int[] unlockedCounts, double[] centrality) {
+        this.graph = graph;
+        this.unlockedCounts = unlockedCounts;
+        this.centrality = centrality;
+    }
+
+    /**
+     * Compute both scores for a graph snapshot
+     */
+    public static PrerequisiteRanking compute(PrerequisiteGraph graph) {
+        long startTime = System.nanoTime();
+        int[] unlockedCounts = computeUnlockedCounts(graph);
+        long unlockedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        double[] centrality = computeCentrality(graph);
+        logger.info("Ranked {} courses ({} edges): unlocked counts in {} ms, centrality in {} ms",
+                   graph.size(), graph.edgeCount(), unlockedMillis,
+                   (System.nanoTime() - startTime) / 1_000_000 - unlockedMillis);
+        return new PrerequisiteRanking(graph, unlockedCounts, centrality);
+    }
+
+    private static int[] computeUnlockedCounts(PrerequisiteGraph graph) {
+        int n = graph.size();
+        int[] counts = new int[n];
+        int[] order = graph.topologicalOrder();
+
+        // Courses on or behind a cycle are settled by repeated passes, as in ReachabilityIndex
+        int[] unordered = new int[n - order.length];
+        if (unordered.length > 0) {
+            boolean[] ordered = new boolean[n];
+            for (int v : order) {
+                ordered[v] = true;
+            }
+            int i = 0;
+            for (int v = 0; v < n; v++) {
+                if (!ordered[v]) {
+                    unordered[i++] = v;
+                }
+            }
+        }
+
+        int blockSize = BLOCK_WORDS * 64;
+        int blocks = (n + blockSize - 1) / blockSize;
+        // Each block owns the counts of its own candidates, so blocks never write the same slot
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int first = block * blockSize;
+            int words = Math.min(BLOCK_WORDS, (n - first + 63) >>> 6);
+            long[] reach = new long[n * words];
+            for (int v : order) {
+                propagate(graph, reach, words, first, v);
+            }
+            boolean changed = unordered.length > 0;
+            while (changed) {
+                changed = false;
+                for (int v : unordered) {
+                    changed |= propagate(graph, reach, words, first, v);
+                }
+            }
+
+            // Column sums through bit-sliced counters: level k of word w holds bit k of the
+            // running count of each of its 64 candidates, so adding a row costs O(1) amortized
+            long[][] levels = new long[words][32];
+            for (int v = 0; v < n; v++) {
+                int base = v * words;
+                for (int w = 0; w < words; w++) {
+                    long carry = reach[base + w];
+                    int self = v - first - (w << 6);
+                    if (self >= 0 && self < 64) {
+                        // A course on a cycle reaches itself but does not unlock itself
+                        carry &= ~(1L << self);
+                    }
+                    long[] level = levels[w];
+                    for (int k = 0; carry != 0; k++) {
+                        long next = level[k] & carry;
+                        level[k] ^= carry;
+                        carry = next;
+                    }
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                for (int b = 0; b < 64 && first + (w << 6) + b < n; b++) {
+                    int count = 0;
+                    for (int k = 0; k < 32; k++) {
+                        count |= (int) ((levels[w][k] >>> b) & 1) << k;
+                    }
+                    counts[first + (w << 6) + b] = count;
+                }
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Fold the prerequisites of a course that belong to the block, and the block members they
+     * require, into the course's row. Returns true if the row changed.
+     */
+    private static boolean propagate(PrerequisiteGraph graph, long[] reach, int words, int first, int course) {
+        int row = course * words;
+        boolean changed = false;
+        for (int e = graph.prerequisiteOffsets[course]; e < graph.prerequisiteOffsets[course + 1]; e++) {
+            int prerequisite = graph.prerequisiteTargets[e];
+            int prerequisiteRow = prerequisite * words;
+            for (int w = 0; w < words; w++) {
+                long merged = reach[row + w] | reach[prerequisiteRow + w];
+                if (merged != reach[row + w]) {
+                    reach[row + w] = merged;
+                    changed = true;
+                }
+            }
+            int offset = prerequisite - first;
+            if (offset >= 0 && offset < words * 64) {
+                long bit = 1L << offset;
+                if ((reach[row + (offset >>> 6)] & bit) == 0) {
+                    reach[row + (offset >>> 6)] |= bit;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static double[] computeCentrality(PrerequisiteGraph graph) {
+        int n = graph.size();
+        if (n == 0) {
+            return new double[0];
+        }
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[] current = rank;
+            // Courses without prerequisites pass their rank to every course evenly
+            double dangling = IntStream.range(0, n).parallel()
+                    .filter(v -> graph.prerequisiteCount(v) == 0)
+                    .mapToDouble(v -> current[v])
+                    .sum();
+            double base = (1.0 - DAMPING) / n + DAMPING * dangling / n;
+
+            double[] updated = next;
+            double delta = IntStream.range(0, n).parallel().mapToDouble(p -> {
+                double sum = 0.0;
+                for (int e = graph.dependentOffsets[p]; e < graph.dependentOffsets[p + 1]; e++) {
+                    int course = graph.dependentTargets[e];
+                    sum += current[course] / graph.prerequisiteCount(course);
+                }
+                updated[p] = base + DAMPING * sum;
+                return Math.abs(updated[p] - current[p]);
+            }).sum();
+
+            next = rank;
+            rank = updated;
+            if (delta < TOLERANCE) {
+                logger.debug("Centrality converged after {} iterations", iteration + 1);
+                break;
+            }
+        }
+        return rank;
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of courses that directly or indirectly require a course
+     */
+    public int unlockedCount(int course) {
+        return unlockedCounts[course];
+    }
+
+    public int unlockedCount(String courseName) {
+        int course = graph.indexOf(courseName);
+        return course >= 0 ? unlockedCounts[course] : 0;
+    }
+
+    /**
+     * PageRank of a course over the reverse prerequisite graph; ranks sum to 1
+     */
+    public double centrality(int course) {
+        return centrality[course];
+    }
+
+    public double centrality(String courseName) {
+        int course = graph.indexOf(courseName);
+        return course >= 0 ? centrality[course] : 0.0;
+    }
+
+    /**
+     * Up to {@code limit} courses with the most transitively unlocked courses, most first
+     */
+    public int[] rankByUnlockedCount(int limit) {
+        return top(limit, (a, b) -> Integer.compare(unlockedCounts[b], unlockedCounts[a]));
+    }
+
+    /**
+     * Up to {@code limit} courses with the highest centrality, highest first
+     */
+    public int[] rankByCentrality(int limit) {
+        return top(limit, (a, b) -> Double.compare(centrality[b], centrality[a]));
+    }
+
+    private int[] top(int limit, Comparator<Integer> comparator) {
+        return IntStream.range(0, graph.size())
+                        .boxed()
+                        .sorted(comparator.thenComparing(graph::name))
+                        .limit(limit)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+    }
+}
@@ -0,0 +1,184 @@
+package edu.college.courses.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transitive closure of the prerequisite graph, answering "does course A eventually
+ * require course B" in constant time.
+ *
+ * Each course keeps a bitset of all its direct and indirect prerequisites, computed in
+ * topological order as the union of its prerequisites' rows. The index takes
+ * {@code size() * size() / 8} bytes, e.g. 12.5 MB for a 10,000-course catalog.
+ */
+public final class ReachabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ReachabilityIndex.class);
+
+    private final PrerequisiteGraph graph;
+    private final long[][] ancestors;
+
+    private ReachabilityIndex(PrerequisiteGraph graph, long[][] ancestors) {
+        this.graph = graph;
+        this.ancestors = ancestors;
+    }
+
+    /**
+     * Compute the closure of a graph snapshot
+     */
+    public static ReachabilityIndex build(PrerequisiteGraph graph) {
+        long startTime = System.nanoTime();
+        int n = graph.size();
+        int words = (n + 63) >>> 6;
+        long[][] ancestors = new long[n][words];
+
+        int[] order = graph.topologicalOrder();
+        for (int v : order) {
+            unionPrerequisites(graph, ancestors, v);
+        }
+
+        if (order.length < n) {
+            // Courses on or behind a cycle: iterate to a fixpoint, which is monotone and terminates
+            boolean[] ordered = new boolean[n];
+            for (int v : order) {
+                ordered[v] = true;
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int v = 0; v < n; v++) {
+                    if (!ordered[v] && unionPrerequisites(graph, ancestors, v)) {
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        logger.info("Built reachability index for {} courses in {} ms ({} KB)",
+                   n, (System.nanoTime() - startTime) / 1_000_000, (long) n * words * 8 / 1024);
+        return new ReachabilityIndex(graph, ancestors);
+    }
+
+    /**
+     * Fold the prerequisites of a course and their ancestor rows into its own row.
+     * Returns true if the row changed.
+     */
+    private static boolean unionPrerequisites(PrerequisiteGraph graph, long[][] ancestors, int course) {
+        long[] row = ancestors[course];
+        boolean changed = false;
+        for (int e = graph.prerequisiteOffsets[course]; e < graph.prerequisiteOffsets[course + 1]; e++) {
+            int prerequisite = graph.prerequisiteTargets[e];
+            long[] prerequisiteRow = ancestors[prerequisite];
+            for (int w = 0; w < row.length; w++) {
+                long merged = row[w] | prerequisiteRow[w];
+                if (merged != row[w]) {
+                    row[w] = merged;
+                    changed = true;
+                }
+            }
+            long bit = 1L << prerequisite;
+            if ((row[prerequisite >>> 6] & bit) == 0) {
+                row[prerequisite >>> 6] |= bit;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * True if {@code ancestor} is a direct or indirect prerequisite of {@code course}
+     */
+    public boolean isAncestor(int ancestor, int course) {
+        return (ancestors[course][ancestor >>> 6] & (1L << ancestor)) != 0;
+    }
+
+    /**
+     * True if {@code ancestor} is a direct or indirect prerequisite of {@code course};
+     * unknown course names are never related
+     */
+    public boolean isAncestor(String ancestor, String course) {
+        int a = graph.indexOf(ancestor);
+        int c = graph.indexOf(course);
+        return a >= 0 && c >= 0 && isAncestor(a, c);
+    }
+
+    /**
+     * Number of direct and indirect prerequisites of a course
+     */
+    public int ancestorCount(int course) {
+        int count = 0;
+        for (long word : ancestors[course]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Every direct and indirect prerequisite of a course, in index order
+     */
+    public int[] allAncestors(int course) {
+        long[] row = ancestors[course];
+        int[] result = new int[ancestorCount(course)];
+        int i = 0;
+        for (int w = 0; w < row.length; w++) {
+            long word = row[w];
+            while (word != 0) {
+                result[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every course that directly or indirectly requires a course, in index order.
+     * This scans one bit per course, so it is O(size()).
+     */
+    public int[] allDescendants(int course) {
+        int word = course >>> 6;
+        long bit = 1L << course;
+        int[] result = new int[16];
+        int count = 0;
+        for (int v = 0; v < ancestors.length; v++) {
+            if ((ancestors[v][word] & bit) != 0) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = v;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Names of every direct and indirect prerequisite of a course
+     */
+    public List<String> allAncestors(String course) {
+        int c = graph.indexOf(course);
+        return c < 0 ? Collections.emptyList() : names(allAncestors(c));
+    }
+
+    /**
+     * Names of every course that directly or indirectly requires a course
+     */
+    public List<String> allDescendants(String course) {
+        int c = graph.indexOf(course);
+        return c < 0 ? Collections.emptyList() : names(allDescendants(c));
+    }
+
+    private List<String> names(int[] courses) {
+        List<String> names = new ArrayList<>(courses.length);
+        for (int course : courses) {
+            names.add(graph.name(course));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.college.courses.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strongly connected components of the prerequisite graph, found with an iterative
+ * Tarjan traversal in O(V + E) time and without recursion, so arbitrarily long
+ * prerequisite chains cannot overflow the stack.
+ *
+ * Every component with more than one course, or a course that lists itself as a
+ * prerequisite, is a circular dependency group. Components are numbered in the order
+ * Tarjan completes them, which is a reverse topological order of the condensed graph:
+ * a component's prerequisites always have lower numbers.
+ */
+public final class StronglyConnectedComponents {
+    private final PrerequisiteGraph graph;
+    private final int[] component;
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    private StronglyConnectedComponents(PrerequisiteGraph graph, int[] component, int componentCount) {
+        this.graph = graph;
+        this.component = component;
+
+        // Group members by component via counting sort
+        this.memberOffsets = new int[componentCount + 1];
+        for (int c : component) {
+            memberOffsets[c + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        this.members = new int[component.length];
+        int[] cursor = Arrays.copyOf(memberOffsets, componentCount);
+        for (int v = 0; v < component.length; v++) {
+            members[cursor[component[v]]++] = v;
+        }
+    }
+
+    /**
+     * Compute the components of a graph snapshot
+     */
+    public static StronglyConnectedComponents compute(PrerequisiteGraph graph) {
+        int n = graph.size();
+        int[] offsets = graph.prerequisiteOffsets;
+        int[] targets = graph.prerequisiteTargets;
+
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] component = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+
+        int[] stack = new int[n];
+        int stackSize = 0;
+        boolean[] onStack = new boolean[n];
+
+        // Explicit DFS call stack: the course and the next edge to explore
+        int[] callCourse = new int[n];
+        int[] callEdge = new int[n];
+
+        int nextIndex = 0;
+        int componentCount = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+
+            int depth = 0;
+            callCourse[0] = root;
+            callEdge[0] = offsets[root];
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = callCourse[depth];
+                if (callEdge[depth] < offsets[v + 1]) {
+                    int w = targets[callEdge[depth]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callCourse[depth] = w;
+                        callEdge[depth] = offsets[w];
+                    } else if (onStack[w] && index[w] < lowLink[v]) {
+                        lowLink[v] = index[w];
+                    }
+                    continue;
+                }
+
+                // All edges of v explored: pop a finished component rooted at v
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = componentCount;
+                    } while (w != v);
+                    componentCount++;
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    int parent = callCourse[depth];
+                    if (lowLink[v] < lowLink[parent]) {
+                        lowLink[parent] = lowLink[v];
+                    }
+                }
+            }
+        }
+
+        return new StronglyConnectedComponents(graph, component, componentCount);
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
+    }
+
+    public int componentCount() {
+        return memberOffsets.length - 1;
+    }
+
+    public int componentOf(int course) {
+        return component[course];
+    }
+
+    /**
+     * Courses belonging to a component
+     */
+    public int[] members(int component) {
+        return Arrays.copyOfRange(members, memberOffsets[component], memberOffsets[component + 1]);
+    }
+
+    /**
+     * True if a course is part of a circular dependency
+     */
+    public boolean isCyclic(int course) {
+        int c = component[course];
+        if (memberOffsets[c + 1] - memberOffsets[c] > 1) {
+            return true;
+        }
+        for (int i = 0; i < graph.prerequisiteCount(course); i++) {
+            if (graph.prerequisite(course, i) == course) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Every circular dependency group, as the courses that belong to it
+     */
+    public List<int[]> cycleGroups() {
+        List<int[]> groups = new ArrayList<>();
+        for (int c = 0; c < componentCount(); c++) {
+            int first = members[memberOffsets[c]];
+            if (isCyclic(first)) {
+                groups.add(members(c));
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,71 @@
+package edu.college.courses.model;
+
+import java.util.Objects;
+
+/**
+ * Cheap fingerprint of the catalog tables, read from indexed timestamps and row counts.
+ * Two equal versions mean no course or prerequisite was inserted, updated or deleted in
+ * between. The {@code updated_at} columns have microsecond precision, so only a change in the
+ * same microsecond as the version was taken could go unnoticed.
+ */
+public class CatalogVersion {
+    private final int courseCount;
+    private final long coursesUpdatedAt;
+    private final int prerequisiteCount;
+    private final long prerequisitesUpdatedAt;
+
+    public CatalogVersion(int courseCount, long coursesUpdatedAt, int prerequisiteCount,
+                          long prerequisitesUpdatedAt) {
+        this.courseCount = courseCount;
+        this.coursesUpdatedAt = coursesUpdatedAt;
+        this.prerequisiteCount = prerequisiteCount;
+        this.prerequisitesUpdatedAt = prerequisitesUpdatedAt;
+    }
+
+    public int getCourseCount() {
+        return courseCount;
+    }
+
+    /**
+     * Latest course update as epoch microseconds, or 0 if there are no courses
+     */
+    public long getCoursesUpdatedAt() {
+        return coursesUpdatedAt;
+    }
+
+    public int getPrerequisiteCount() {
+        return prerequisiteCount;
+    }
+
+    /**
+     * Latest prerequisite insert or update as epoch microseconds, or 0 if there are no prerequisites
+     */
+    public long getPrerequisitesUpdatedAt() {
+        return prerequisitesUpdatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CatalogVersion that = (CatalogVersion) o;
+        return courseCount == that.courseCount && coursesUpdatedAt == that.coursesUpdatedAt
+                && prerequisiteCount == that.prerequisiteCount
+                && prerequisitesUpdatedAt == that.prerequisitesUpdatedAt;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(courseCount, coursesUpdatedAt, prerequisiteCount, prerequisitesUpdatedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogVersion{" +
+                "courses=" + courseCount +
+                ", coursesUpdatedAt=" + coursesUpdatedAt +
+                ", prerequisites=" + prerequisiteCount +
+                ", prerequisitesUpdatedAt=" + prerequisitesUpdatedAt +
+                '}';
+    }
+}
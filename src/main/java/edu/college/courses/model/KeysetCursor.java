@@ -0,0 +1,85 @@
+package edu.college.courses.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in a listing of courses ordered by name: the key of the last course of a page.
+ * The next page starts right after its name, which is unique, so fetching a page is an index
+ * range scan however deep into the listing it is. The ID travels along to identify the course.
+ */
+public class KeysetCursor {
+    private final String courseName;
+    private final int courseId;
+
+    public KeysetCursor(String courseName, int courseId) {
+        this.courseName = Objects.requireNonNull(courseName, "courseName");
+        this.courseId = courseId;
+    }
+
+    /**
+     * Cursor positioned right after a course
+     */
+    public static KeysetCursor after(Course course) {
+        return new KeysetCursor(course.getCourseName(), course.getCourseId());
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public int getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Opaque URL-safe token, e.g. for handing the cursor to a client between requests
+     */
+    public String encode() {
+        String key = courseId + ":" + courseName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+        int separator = key.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        try {
+            return new KeysetCursor(key.substring(separator + 1), Integer.parseInt(key.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return courseId == that.courseId && courseName.equals(that.courseName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(courseName, courseId);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+                "courseName='" + courseName + '\'' +
+                ", courseId=" + courseId +
+                '}';
+    }
+}
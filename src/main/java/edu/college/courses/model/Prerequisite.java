@@ -11,6 +11,8 @@ public class Prerequisite {
     private int courseId;
     private int prerequisiteCourseId;
     private boolean isRequired;
+    // Rows of a course sharing a group are alternatives (OR); null means required on its own
+    private Integer alternativeGroup;
     private LocalDateTime createdAt;
     
     // Additional fields for display purposes
@@ -68,6 +70,14 @@ public class Prerequisite {
         isRequired = required;
     }
 
+    public Integer getAlternativeGroup() {
+        return alternativeGroup;
+    }
+
+    public void setAlternativeGroup(Integer alternativeGroup) {
+        this.alternativeGroup = alternativeGroup;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -112,6 +122,7 @@ public class Prerequisite {
                 ", courseId=" + courseId +
                 ", prerequisiteCourseId=" + prerequisiteCourseId +
                 ", isRequired=" + isRequired +
+                ", alternativeGroup=" + alternativeGroup +
                 '}';
     }
 }
@@ -0,0 +1,66 @@
+package edu.college.courses.model;
+
+import java.util.Objects;
+
+/**
+ * A prerequisite edge in the ancestor subgraph of a course, with its distance
+ * (in edges) from that course
+ */
+public class PrerequisiteEdge {
+    private final int courseId;
+    private final String courseName;
+    private final int prerequisiteCourseId;
+    private final String prerequisiteName;
+    private final int depth;
+
+    public PrerequisiteEdge(int courseId, String courseName, int prerequisiteCourseId,
+                            String prerequisiteName, int depth) {
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.prerequisiteCourseId = prerequisiteCourseId;
+        this.prerequisiteName = prerequisiteName;
+        this.depth = depth;
+    }
+
+    public int getCourseId() {
+        return courseId;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public int getPrerequisiteCourseId() {
+        return prerequisiteCourseId;
+    }
+
+    public String getPrerequisiteName() {
+        return prerequisiteName;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PrerequisiteEdge that = (PrerequisiteEdge) o;
+        return courseId == that.courseId && prerequisiteCourseId == that.prerequisiteCourseId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(courseId, prerequisiteCourseId);
+    }
+
+    @Override
+    public String toString() {
+        return "PrerequisiteEdge{" +
+                "courseName='" + courseName + '\'' +
+                ", prerequisiteName='" + prerequisiteName + '\'' +
+                ", depth=" + depth +
+                '}';
+    }
+}
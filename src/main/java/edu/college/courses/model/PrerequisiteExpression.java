@@ -0,0 +1,80 @@
+package edu.college.courses.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The requirement for taking a course, as an AND of OR groups of prerequisite courses.
+ * "Stat4202 requires Math4530 OR Stat4201" is a single group of two alternatives;
+ * a prerequisite without an alternative group forms a group of its own.
+ * Optional (not required) prerequisites are not part of the expression.
+ */
+public class PrerequisiteExpression {
+    private final String courseName;
+    private final List<List<String>> groups;
+
+    public PrerequisiteExpression(String courseName, List<List<String>> groups) {
+        this.courseName = courseName;
+        this.groups = groups;
+    }
+
+    /**
+     * Build the expression of a course from its prerequisite rows
+     */
+    public static PrerequisiteExpression fromPrerequisites(String courseName, List<Prerequisite> prerequisites) {
+        List<List<String>> groups = new ArrayList<>();
+        Map<Integer, List<String>> alternatives = new TreeMap<>();
+        
+        for (Prerequisite prerequisite : prerequisites) {
+            if (!prerequisite.isRequired()) {
+                continue;
+            }
+            String name = prerequisite.getPrerequisiteCourse().getCourseName();
+            if (prerequisite.getAlternativeGroup() == null) {
+                groups.add(Collections.singletonList(name));
+            } else {
+                alternatives.computeIfAbsent(prerequisite.getAlternativeGroup(), k -> new ArrayList<>()).add(name);
+            }
+        }
+        groups.addAll(alternatives.values());
+        
+        return new PrerequisiteExpression(courseName, groups);
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    /**
+     * The OR groups, all of which must be satisfied
+     */
+    public List<List<String>> getGroups() {
+        return groups;
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (groups.isEmpty()) {
+            return "(none)";
+        }
+        StringBuilder expression = new StringBuilder();
+        for (List<String> group : groups) {
+            if (expression.length() > 0) {
+                expression.append(" AND ");
+            }
+            if (group.size() == 1) {
+                expression.append(group.get(0));
+            } else {
+                expression.append('(').append(String.join(" OR ", group)).append(')');
+            }
+        }
+        return expression.toString();
+    }
+}
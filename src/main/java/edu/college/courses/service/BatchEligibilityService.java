@@ -0,0 +1,234 @@
+package edu.college.courses.service;
+
+import edu.college.courses.dao.CourseDAO;
+import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.graph.EligibilityEvaluator;
+import edu.college.courses.graph.PrerequisiteGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes, for every student in a transcript file, the courses they are eligible to take.
+ *
+ * Transcript lines have the form {@code StudentId,Course1,Course2,...} listing completed
+ * courses. Output lines have the same form listing the courses the student has not completed
+ * and whose requirements are met. The file is streamed in chunks; each chunk is evaluated in
+ * parallel on a fork-join pool with one completed-course bitset per task, then written in
+ * input order.
+ */
+public class BatchEligibilityService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchEligibilityService.class);
+
+    // Students read, evaluated and written per round
+    private static final int CHUNK_SIZE = 8192;
+    // Students evaluated sequentially by one fork-join task
+    private static final int TASK_SIZE = 256;
+
+    private final CourseDAO courseDAO;
+    private final PrerequisiteDAO prerequisiteDAO;
+
+    public BatchEligibilityService() {
+        this(new CourseDAO(), new PrerequisiteDAO());
+    }
+
+    /**
+     * Use shared DAOs, e.g. a {@link CourseDAO} with a cache
+     */
+    public BatchEligibilityService(CourseDAO courseDAO, PrerequisiteDAO prerequisiteDAO) {
+        this.courseDAO = courseDAO;
+        this.prerequisiteDAO = prerequisiteDAO;
+        prerequisiteDAO.followCourseDeletes(courseDAO);
+    }
+
+    /**
+     * Load the catalog through the DAOs and evaluate every student in a transcript file
+     */
+    public BatchResult checkEligibility(Path transcriptFile, Path outputFile) throws IOException, SQLException {
+        PrerequisiteGraph graph = PrerequisiteGraph.load(courseDAO, prerequisiteDAO);
+        return checkEligibility(EligibilityEvaluator.compile(graph), transcriptFile, outputFile);
+    }
+
+    /**
+     * Evaluate every student in a transcript file against a compiled catalog
+     */
+    public BatchResult checkEligibility(EligibilityEvaluator evaluator, Path transcriptFile, Path outputFile)
+            throws IOException {
+        logger.info("Starting batch eligibility check: {} -> {}", transcriptFile, outputFile);
+
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        String[] transcripts = new String[CHUNK_SIZE];
+        String[] results = new String[CHUNK_SIZE];
+        AtomicLong eligibleCount = new AtomicLong();
+        AtomicLong unknownCourses = new AtomicLong();
+        long students = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(transcriptFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+
+            while (true) {
+                int count = 0;
+                String line;
+                while (count < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        transcripts[count++] = line;
+                    }
+                }
+                if (count == 0) {
+                    break;
+                }
+
+                pool.invoke(new EvaluateTask(evaluator, transcripts, results, 0, count, eligibleCount, unknownCourses));
+
+                for (int i = 0; i < count; i++) {
+                    writer.write(results[i]);
+                    writer.newLine();
+                }
+                students += count;
+            }
+        }
+
+        BatchResult result = new BatchResult(students, eligibleCount.get(), unknownCourses.get(),
+                                             (System.nanoTime() - startTime) / 1_000_000);
+        logger.info("Batch eligibility check completed: {}", result);
+        return result;
+    }
+
+    /**
+     * Evaluates a range of transcripts, splitting until the range is small enough
+     */
+    private static class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final EligibilityEvaluator evaluator;
+        private final String[] transcripts;
+        private final String[] results;
+        private final int from;
+        private final int to;
+        private final AtomicLong eligibleCount;
+        private final AtomicLong unknownCourses;
+
+        EvaluateTask(EligibilityEvaluator evaluator, String[] transcripts, String[] results, int from, int to,
+                     AtomicLong eligibleCount, AtomicLong unknownCourses) {
+            this.evaluator = evaluator;
+            this.transcripts = transcripts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.eligibleCount = eligibleCount;
+            this.unknownCourses = unknownCourses;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EvaluateTask(evaluator, transcripts, results, from, middle, eligibleCount, unknownCourses),
+                          new EvaluateTask(evaluator, transcripts, results, middle, to, eligibleCount, unknownCourses));
+                return;
+            }
+
+            PrerequisiteGraph graph = evaluator.getGraph();
+            long[] completed = evaluator.newCourseSet();
+            int[] eligible = new int[graph.size()];
+            StringBuilder output = new StringBuilder();
+            long eligibleTotal = 0;
+            long unknownTotal = 0;
+
+            for (int i = from; i < to; i++) {
+                String transcript = transcripts[i];
+                Arrays.fill(completed, 0L);
+
+                int comma = transcript.indexOf(',');
+                String studentId = (comma < 0 ? transcript : transcript.substring(0, comma)).trim();
+                while (comma >= 0) {
+                    int next = transcript.indexOf(',', comma + 1);
+                    String courseName = (next < 0 ? transcript.substring(comma + 1)
+                                                  : transcript.substring(comma + 1, next)).trim();
+                    if (!courseName.isEmpty()) {
+                        int course = graph.indexOf(courseName);
+                        if (course >= 0) {
+                            EligibilityEvaluator.add(completed, course);
+                        } else {
+                            unknownTotal++;
+                        }
+                    }
+                    comma = next;
+                }
+
+                int count = evaluator.eligibleCourses(completed, eligible);
+                output.setLength(0);
+                output.append(studentId);
+                for (int e = 0; e < count; e++) {
+                    output.append(',').append(graph.name(eligible[e]));
+                }
+                results[i] = output.toString();
+                eligibleTotal += count;
+            }
+
+            eligibleCount.addAndGet(eligibleTotal);
+            unknownCourses.addAndGet(unknownTotal);
+        }
+    }
+
+    /**
+     * Result of a batch eligibility run
+     */
+    public static class BatchResult {
+        private final long studentsProcessed;
+        private final long eligibleCourses;
+        private final long unknownCourses;
+        private final long elapsedMillis;
+
+        public BatchResult(long studentsProcessed, long eligibleCourses, long unknownCourses, long elapsedMillis) {
+            this.studentsProcessed = studentsProcessed;
+            this.eligibleCourses = eligibleCourses;
+            this.unknownCourses = unknownCourses;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getStudentsProcessed() {
+            return studentsProcessed;
+        }
+
+        /**
+         * Total (student, eligible course) pairs written
+         */
+        public long getEligibleCourses() {
+            return eligibleCourses;
+        }
+
+        /**
+         * Transcript entries naming a course that is not in the catalog
+         */
+        public long getUnknownCourses() {
+            return unknownCourses;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getStudentsPerSecond() {
+            return elapsedMillis > 0 ? studentsProcessed * 1000.0 / elapsedMillis : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BatchResult{students=%d, eligible=%d, unknownCourses=%d, studentsPerSecond=%.1f}",
+                               studentsProcessed, eligibleCourses, unknownCourses, getStudentsPerSecond());
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package edu.college.courses.service;
 
+import edu.college.courses.config.DatabaseConfig;
 import edu.college.courses.dao.CourseDAO;
 import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.graph.IncrementalCycleDetector;
 import edu.college.courses.model.Course;
 import edu.college.courses.model.Prerequisite;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for importing course data from CSV files
@@ -22,21 +36,43 @@ import java.util.Map;
 public class CSVImportService {
     private static final Logger logger = LoggerFactory.getLogger(CSVImportService.class);
     
+    /** Number of CSV rows written per batch and transaction in bulk mode */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    // Separates alternative prerequisites (OR) within the prerequisite field
+    private static final char ALTERNATIVE_SEPARATOR = '|';
+    private static final String[] NO_PREREQUISITES = new String[0];
+    
+    // Fingerprint group of a stored edge that is not required; imported edges always are, so it gets updated
+    private static final int OPTIONAL_EDGE = -1;
+    
     private final CourseDAO courseDAO;
     private final PrerequisiteDAO prerequisiteDAO;
     
     public CSVImportService() {
-        this.courseDAO = new CourseDAO();
-        this.prerequisiteDAO = new PrerequisiteDAO();
+        this(new CourseDAO(), new PrerequisiteDAO());
+    }
+
+    /**
+     * Use shared DAOs, e.g. a {@link CourseDAO} with a cache
+     */
+    public CSVImportService(CourseDAO courseDAO, PrerequisiteDAO prerequisiteDAO) {
+        this.courseDAO = courseDAO;
+        this.prerequisiteDAO = prerequisiteDAO;
+        prerequisiteDAO.followCourseDeletes(courseDAO);
     }
 
     /**
      * Import courses and prerequisites from CSV file
      * Expected CSV format: CourseName,PreqCourseName,CreditHours,Major1/Major2/GenedEdu/Minor,Description
+     * PreqCourseName may list alternatives separated by '|', e.g. Math4530|Stat4201
+     * Prerequisites that would create a circular dependency are rejected and reported per line.
      */
     public ImportResult importFromCSV(String filePath) throws IOException, SQLException {
         logger.info("Starting CSV import from: {}", filePath);
         
+        long startTime = System.nanoTime();
+        cycleDetector();
         List<String> errors = new ArrayList<>();
         int coursesImported = 0;
         int prerequisitesImported = 0;
@@ -44,33 +80,25 @@ public class CSVImportService {
         // Map to store course names to IDs for prerequisite relationships
         Map<String, Integer> courseNameToId = new HashMap<>();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            int lineNumber = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
+        int lineNumber = 0;
+        long rowsProcessed;
+        
+        try (CsvScanner scanner = CsvScanner.open(Paths.get(filePath))) {
+            while (scanner.nextRecord()) {
+                lineNumber = scanner.lineNumber();
                 
                 try {
-                    String[] fields = parseCSVLine(line);
-                    if (fields.length < 5) {
+                    CourseRow row = parseRow(scanner);
+                    if (row == null) {
                         errors.add("Line " + lineNumber + ": Insufficient fields");
                         continue;
                     }
                     
-                    String courseName = fields[0].trim();
-                    String prerequisiteName = fields[1].trim();
-                    int creditHours = Integer.parseInt(fields[2].trim());
-                    String majorType = fields[3].trim();
-                    String description = fields[4].trim();
+                    String courseName = row.courseName;
                     
                     // Import course if not already imported
                     if (!courseNameToId.containsKey(courseName)) {
-                        Course course = new Course();
-                        course.setCourseName(courseName);
-                        course.setCreditHours(creditHours);
-                        course.setMajorType(parseMajorType(majorType));
-                        course.setDescription(description);
+                        Course course = row.toCourse();
                         
                         int courseId = courseDAO.insertCourse(course);
                         courseNameToId.put(courseName, courseId);
@@ -78,36 +106,36 @@ public class CSVImportService {
                         logger.debug("Imported course: {} with ID: {}", courseName, courseId);
                     }
                     
-                    // Import prerequisite if specified and not empty
-                    if (!prerequisiteName.isEmpty() && !prerequisiteName.equals(courseName)) {
-                        // Check if prerequisite course exists, if not create it
-                        if (!courseNameToId.containsKey(prerequisiteName)) {
-                            Course prerequisiteCourse = new Course();
-                            prerequisiteCourse.setCourseName(prerequisiteName);
-                            prerequisiteCourse.setCreditHours(0); // Default value
-                            prerequisiteCourse.setMajorType(Course.MajorType.Major1); // Default value
-                            prerequisiteCourse.setDescription("Imported as prerequisite");
-                            
-                            int prereqId = courseDAO.insertCourse(prerequisiteCourse);
-                            courseNameToId.put(prerequisiteName, prereqId);
-                            coursesImported++;
-                            logger.debug("Imported prerequisite course: {} with ID: {}", prerequisiteName, prereqId);
+                    // Import prerequisites if specified; several names are alternatives of each other
+                    if (row.hasPrerequisites()) {
+                        // Check if prerequisite courses exist, if not create them
+                        for (String prerequisiteName : row.prerequisiteNames) {
+                            if (!courseNameToId.containsKey(prerequisiteName)) {
+                                Course prerequisiteCourse = CourseRow.toPlaceholderPrerequisite(prerequisiteName);
+                                
+                                int prereqId = courseDAO.insertCourse(prerequisiteCourse);
+                                courseNameToId.put(prerequisiteName, prereqId);
+                                coursesImported++;
+                                logger.debug("Imported prerequisite course: {} with ID: {}", prerequisiteName, prereqId);
+                            }
                         }
                         
-                        // Create prerequisite relationship
+                        // Create prerequisite relationships
                         int courseId = courseNameToId.get(courseName);
-                        int prerequisiteId = courseNameToId.get(prerequisiteName);
+                        Integer alternativeGroup = row.alternativeGroup(courseNameToId);
                         
-                        // Check if relationship already exists
-                        if (!prerequisiteDAO.prerequisiteExists(courseId, prerequisiteId)) {
-                            Prerequisite prerequisite = new Prerequisite();
-                            prerequisite.setCourseId(courseId);
-                            prerequisite.setPrerequisiteCourseId(prerequisiteId);
-                            prerequisite.setRequired(true);
+                        for (String prerequisiteName : row.prerequisiteNames) {
+                            int prerequisiteId = courseNameToId.get(prerequisiteName);
                             
-                            prerequisiteDAO.insertPrerequisite(prerequisite);
-                            prerequisitesImported++;
-                            logger.debug("Created prerequisite: {} -> {}", prerequisiteName, courseName);
+                            // Check if relationship already exists
+                            if (!prerequisiteDAO.prerequisiteExists(courseId, prerequisiteId)) {
+                                Prerequisite prerequisite = new Prerequisite(courseId, prerequisiteId, true);
+                                prerequisite.setAlternativeGroup(alternativeGroup);
+                                
+                                prerequisiteDAO.insertPrerequisite(prerequisite);
+                                prerequisitesImported++;
+                                logger.debug("Created prerequisite: {} -> {}", prerequisiteName, courseName);
+                            }
                         }
                     }
                     
@@ -117,58 +145,931 @@ public class CSVImportService {
                     logger.warn("Error processing line {}: {}", lineNumber, e.getMessage());
                 }
             }
+            rowsProcessed = scanner.recordCount();
         }
         
         logger.info("CSV import completed. Courses: {}, Prerequisites: {}, Errors: {}", 
                    coursesImported, prerequisitesImported, errors.size());
         
-        return new ImportResult(coursesImported, prerequisitesImported, errors);
+        return new ImportResult(coursesImported, prerequisitesImported, errors,
+                               (int) rowsProcessed, elapsedMillis(startTime));
+    }
+
+    /**
+     * Import courses and prerequisites using JDBC batches with the default batch size
+     */
+    public ImportResult importFromCSVBulk(String filePath) throws IOException, SQLException {
+        return importFromCSVBulk(filePath, DEFAULT_BATCH_SIZE);
     }
 
     /**
-     * Parse a CSV line handling quoted fields and commas
+     * Import courses and prerequisites using JDBC batches on a single connection.
+     * Each chunk of {@code batchSize} rows is written in its own transaction; a chunk
+     * that fails is rolled back and reported as one error covering its line range.
+     * Prerequisites that would create a circular dependency are skipped and reported per line.
      */
-    private String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
+    public ImportResult importFromCSVBulk(String filePath, int batchSize) throws IOException, SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        logger.info("Starting bulk CSV import from: {} (batch size {})", filePath, batchSize);
+        
+        long startTime = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        long rowsProcessed;
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+        BulkWriter writer = new BulkWriter(courseDAO.findAllCourseIds(), cycleDetector());
+        
+        try (CsvScanner scanner = CsvScanner.open(Paths.get(filePath));
+             Connection conn = DatabaseConfig.getConnection()) {
             
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString().trim());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<CourseRow> chunk = new ArrayList<>(batchSize);
+                
+                while (scanner.nextRecord()) {
+                    parseInto(scanner, chunk, errors);
+                    if (chunk.size() >= batchSize) {
+                        writer.writeChunk(conn, chunk, errors);
+                        chunk.clear();
+                    }
+                }
+                
+                writer.writeChunk(conn, chunk, errors);
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
+            rowsProcessed = scanner.recordCount();
         }
         
-        fields.add(currentField.toString().trim());
-        return fields.toArray(new String[0]);
+        ImportResult result = new ImportResult(writer.coursesImported, writer.prerequisitesImported, errors,
+                                               (int) rowsProcessed, elapsedMillis(startTime));
+        logger.info("Bulk CSV import completed: {}", result);
+        return result;
+    }
+
+    /**
+     * Import with the default batch size and one parse worker per available processor
+     */
+    public ImportResult importFromCSVPipelined(String filePath) throws IOException, SQLException {
+        return importFromCSVPipelined(filePath, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
     }
 
     /**
-     * Parse major type from string
+     * Import as a pipeline: a reader thread cuts the file into blocks of {@code batchSize} records,
+     * {@code parserThreads} workers parse and validate blocks in parallel, and the calling thread
+     * writes the parsed blocks in file order with the same batches and transactions as
+     * {@link #importFromCSVBulk(String, int)}, so the result and the per-line errors are the same.
+     * At most two blocks per worker are in flight at once; the reader waits when the writer
+     * falls behind.
      */
-    private Course.MajorType parseMajorType(String majorType) {
-        switch (majorType.toUpperCase()) {
-            case "M1":
-            case "MAJOR1":
-                return Course.MajorType.Major1;
-            case "M2":
-            case "MAJOR2":
-                return Course.MajorType.Major2;
-            case "GE":
-            case "GENERALEDUCATION":
-                return Course.MajorType.GeneralEducation;
-            case "M":
-            case "MINOR":
-                return Course.MajorType.Minor;
-            default:
-                return Course.MajorType.Major1; // Default
+    public ImportResult importFromCSVPipelined(String filePath, int batchSize, int parserThreads) 
+            throws IOException, SQLException {
+        if (batchSize <= 0 || parserThreads <= 0) {
+            throw new IllegalArgumentException("Batch size and parser threads must be positive: "
+                                               + batchSize + ", " + parserThreads);
+        }
+        logger.info("Starting pipelined CSV import from: {} (batch size {}, {} parser threads)",
+                   filePath, batchSize, parserThreads);
+        
+        long startTime = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        BulkWriter writer = new BulkWriter(courseDAO.findAllCourseIds(), cycleDetector());
+        ImportPipeline pipeline = new ImportPipeline(filePath, batchSize, parserThreads);
+        
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                pipeline.start();
+                ParsedBlock block;
+                while ((block = pipeline.next()) != null) {
+                    errors.addAll(block.errors);
+                    writer.writeChunk(conn, block.rows, errors);
+                }
+            } finally {
+                pipeline.stop();
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        
+        ImportResult result = new ImportResult(writer.coursesImported, writer.prerequisitesImported, errors,
+                                               pipeline.lineCount, elapsedMillis(startTime));
+        logger.info("Pipelined CSV import completed: {}", result);
+        return result;
+    }
+
+    /**
+     * Resumable import with the default batch size
+     */
+    public ImportResult importFromCSVResumable(String filePath, Path checkpointFile, Path errorFile)
+            throws IOException, SQLException {
+        return importFromCSVResumable(filePath, checkpointFile, errorFile, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Import with the batches and transactions of {@link #importFromCSVBulk(String, int)}, saving a
+     * checkpoint after each committed batch. If {@code checkpointFile} holds a checkpoint for the
+     * same, unchanged file, the import continues after the last committed record; a batch that
+     * committed just before the checkpoint could be saved is read again and found already written.
+     * The checkpoint is deleted once the whole file has been imported. A batch that fails to write
+     * is rolled back and its exception thrown without advancing the checkpoint, so running the
+     * import again retries that batch.
+     *
+     * Per-line errors go to {@code errorFile}, up to {@link ImportErrorLog#DEFAULT_MAX_FILE_BYTES}.
+     * The result counts every row and error since the import first started but carries only a
+     * sample of this run's errors; see {@link ImportResult#getErrorFile()}.
+     */
+    public ImportResult importFromCSVResumable(String filePath, Path checkpointFile, Path errorFile, int batchSize)
+            throws IOException, SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        Path csvFile = Paths.get(filePath);
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+        if (checkpoint != null && !checkpoint.matches(csvFile)) {
+            logger.warn("Checkpoint {} was taken for another version of {}; starting over", checkpointFile, filePath);
+            checkpoint = null;
+        }
+        if (checkpoint == null) {
+            checkpoint = ImportCheckpoint.start(csvFile);
+            logger.info("Starting resumable CSV import from: {} (batch size {})", filePath, batchSize);
+        } else {
+            logger.info("Resuming CSV import from: {} at line {} after batch {}",
+                       filePath, checkpoint.getNextLineNumber(), checkpoint.getBatchId());
+        }
+        
+        long startTime = System.nanoTime();
+        ImportCheckpoint resumedFrom = checkpoint;
+        BulkWriter writer = new BulkWriter(courseDAO.findAllCourseIds(), cycleDetector(), true);
+        List<String> sample;
+        int errorCount;
+        
+        try (ImportErrorLog errorLog = new ImportErrorLog(errorFile, ImportErrorLog.DEFAULT_MAX_FILE_BYTES,
+                                                          ImportErrorLog.DEFAULT_SAMPLE_SIZE,
+                                                          checkpoint.getErrorCount(), checkpoint.getErrorFileBytes(),
+                                                          checkpoint.isErrorFileTruncated());
+             CsvScanner scanner = CsvScanner.open(csvFile, checkpoint.getByteOffset(), checkpoint.getNextLineNumber());
+             Connection conn = DatabaseConfig.getConnection()) {
+            
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<CourseRow> chunk = new ArrayList<>(batchSize);
+                // Errors of the current batch, handed to the error log when the batch is done
+                List<String> chunkErrors = new ArrayList<>();
+                
+                while (scanner.nextRecord()) {
+                    parseInto(scanner, chunk, chunkErrors);
+                    if (chunk.size() >= batchSize) {
+                        checkpoint = writeCheckpointed(conn, writer, chunk, chunkErrors, errorLog, scanner,
+                                                       resumedFrom, checkpoint, checkpointFile);
+                    }
+                }
+                
+                if (!chunk.isEmpty() || !chunkErrors.isEmpty()) {
+                    checkpoint = writeCheckpointed(conn, writer, chunk, chunkErrors, errorLog, scanner,
+                                                   resumedFrom, checkpoint, checkpointFile);
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            sample = new ArrayList<>(errorLog.getSample());
+            errorCount = errorLog.getCount();
+        }
+        ImportCheckpoint.delete(checkpointFile);
+        
+        ImportResult result = new ImportResult(checkpoint.getCoursesImported(), checkpoint.getPrerequisitesImported(),
+                                               sample, errorCount, errorFile, checkpoint.getRowsProcessed(),
+                                               elapsedMillis(startTime));
+        logger.info("Resumable CSV import completed after {} batches: {}", checkpoint.getBatchId(), result);
+        return result;
+    }
+
+    /**
+     * Write one batch, log its errors and save the checkpoint after it
+     */
+    private ImportCheckpoint writeCheckpointed(Connection conn, BulkWriter writer, List<CourseRow> chunk,
+                                               List<String> chunkErrors, ImportErrorLog errorLog, CsvScanner scanner,
+                                               ImportCheckpoint resumedFrom, ImportCheckpoint checkpoint,
+                                               Path checkpointFile) throws SQLException, IOException {
+        writer.writeChunk(conn, chunk, chunkErrors);
+        errorLog.addAll(chunkErrors);
+        // The checkpoint must not refer to errors that could still be lost
+        errorLog.sync();
+        
+        ImportCheckpoint next = checkpoint.next(scanner.recordEnd(), scanner.nextLineNumber(),
+                resumedFrom.getRowsProcessed() + (int) scanner.recordCount(),
+                resumedFrom.getCoursesImported() + writer.coursesImported,
+                resumedFrom.getPrerequisitesImported() + writer.prerequisitesImported,
+                errorLog.getCount(), errorLog.getFileBytes(), errorLog.isTruncated());
+        next.save(checkpointFile);
+        chunk.clear();
+        chunkErrors.clear();
+        logger.debug("Saved {}", next);
+        return next;
+    }
+
+    /**
+     * Delta import with the default batch size
+     */
+    public DeltaImportResult importFromCSVDelta(String filePath) throws IOException, SQLException {
+        return importFromCSVDelta(filePath, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Bring the catalog in line with a full CSV feed, writing only what differs. The file is
+     * parsed first and compared in memory with fingerprints of the current courses and edges,
+     * loaded in one scan each; then the changes are written as JDBC batches of {@code batchSize}
+     * in a single transaction, so a failure leaves the catalog as it was.
+     *
+     * A course listed in the first column is inserted, or updated if its credit hours, major type
+     * or description differ (the first row of a course counts). Its prerequisites become exactly
+     * those in the file: new edges are inserted, edges whose alternative group changed are
+     * updated, and edges no longer listed are removed. Courses only named as prerequisites are
+     * inserted as placeholders if missing and otherwise left alone, as are courses not in the file.
+     */
+    public DeltaImportResult importFromCSVDelta(String filePath, int batchSize) throws IOException, SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        logger.info("Starting delta CSV import from: {} (batch size {})", filePath, batchSize);
+
+        long startTime = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        List<CourseRow> rows = new ArrayList<>();
+        long rowsProcessed;
+
+        Set<String> incompleteCourses = new HashSet<>();
+
+        try (CsvScanner scanner = CsvScanner.open(Paths.get(filePath))) {
+            while (scanner.nextRecord()) {
+                int parsed = rows.size();
+                parseInto(scanner, rows, errors);
+                if (rows.size() == parsed && scanner.fieldCount() > 0) {
+                    // A rejected row may have listed prerequisites; keep the course's edges rather than remove them
+                    incompleteCourses.add(scanner.trimmedField(0));
+                }
+            }
+            rowsProcessed = scanner.recordCount();
+        }
+
+        IncrementalCycleDetector detector = cycleDetector();
+        Map<String, CourseFingerprint> currentCourses = new HashMap<>();
+        courseDAO.forEachCourse((courseId, courseName, creditHours, majorType, description) ->
+                currentCourses.put(courseName, new CourseFingerprint(courseId, creditHours, majorType, description)));
+        Map<Long, Integer> currentEdges = new HashMap<>();
+        prerequisiteDAO.forEachEdge((courseId, prerequisiteCourseId, required, alternativeGroup) ->
+                currentEdges.put(edgeKey(courseId, prerequisiteCourseId), required ? alternativeGroup : OPTIONAL_EDGE));
+
+        DeltaPlan plan = new DeltaPlan(currentCourses, currentEdges, incompleteCourses, detector);
+        plan.diffCourses(rows);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (List<Course> chunk : partition(plan.insertedCourses, batchSize)) {
+                    courseDAO.insertCoursesBatch(conn, chunk);
+                }
+                for (List<Course> chunk : partition(plan.updatedCourses, batchSize)) {
+                    courseDAO.upsertCoursesBatch(conn, chunk);
+                }
+
+                // Edges reference the IDs of the courses just inserted
+                plan.diffEdges(rows, errors);
+                for (List<Prerequisite> chunk : partition(plan.removedEdges, batchSize)) {
+                    prerequisiteDAO.deletePrerequisitesBatch(conn, chunk);
+                }
+                for (List<Prerequisite> chunk : partition(plan.upsertedEdges, batchSize)) {
+                    prerequisiteDAO.upsertPrerequisitesBatch(conn, chunk);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                plan.restoreCycleDetector();
+                logger.warn("Delta import rolled back: {}", e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        List<Course> saved = new ArrayList<>(plan.insertedCourses);
+        saved.addAll(plan.updatedCourses);
+        courseDAO.publishSaved(saved);
+
+        DeltaImportResult result = new DeltaImportResult(
+                plan.insertedCourses.size(), plan.updatedCourses.size(), plan.coursesUnchanged,
+                plan.prerequisitesInserted, plan.prerequisitesUpdated, plan.removedEdges.size(),
+                plan.prerequisitesUnchanged, errors, (int) rowsProcessed, elapsedMillis(startTime));
+        logger.info("Delta CSV import completed: {}", result);
+        return result;
+    }
+
+    /**
+     * The DAO's cycle detector, loading the current edges on first use
+     */
+    private IncrementalCycleDetector cycleDetector() throws SQLException {
+        IncrementalCycleDetector detector = prerequisiteDAO.getCycleDetector();
+        return detector != null ? detector : prerequisiteDAO.enableCycleCheck();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static long edgeKey(int courseId, int prerequisiteCourseId) {
+        return ((long) courseId << 32) | (prerequisiteCourseId & 0xFFFFFFFFL);
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + size)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Parse the scanner's current record into {@code rows}, or record why it was rejected
+     */
+    private void parseInto(CsvScanner scanner, List<CourseRow> rows, List<String> errors) {
+        int lineNumber = scanner.lineNumber();
+        try {
+            CourseRow row = parseRow(scanner);
+            if (row == null) {
+                errors.add("Line " + lineNumber + ": Insufficient fields");
+                return;
+            }
+            rows.add(row);
+        } catch (Exception e) {
+            errors.add("Line " + lineNumber + ": " + e.getMessage());
+            logger.warn("Error processing line {}: {}", lineNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * Parse the scanner's current record into a row, or return null if it has too few fields
+     */
+    private CourseRow parseRow(CsvScanner scanner) {
+        if (scanner.fieldCount() < 5) {
+            return null;
+        }
+        
+        String courseName = scanner.trimmedField(0);
+        return new CourseRow(scanner.lineNumber(),
+                courseName,
+                scanner.isBlank(1) ? NO_PREREQUISITES : parsePrerequisiteNames(scanner.trimmedField(1), courseName),
+                scanner.intField(2),
+                parseMajorType(scanner, 3),
+                scanner.trimmedField(4));
+    }
+
+    /**
+     * Split the prerequisite field into alternative course names, dropping blanks and the course itself
+     */
+    private String[] parsePrerequisiteNames(String field, String courseName) {
+        String trimmed = field.trim();
+        if (trimmed.isEmpty()) {
+            return NO_PREREQUISITES;
+        }
+        if (trimmed.indexOf(ALTERNATIVE_SEPARATOR) < 0) {
+            return trimmed.equals(courseName) ? NO_PREREQUISITES : new String[] { trimmed };
+        }
+        
+        List<String> names = new ArrayList<>();
+        for (String name : trimmed.split("\\" + ALTERNATIVE_SEPARATOR)) {
+            name = name.trim();
+            if (!name.isEmpty() && !name.equals(courseName) && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * Parse the major type field, defaulting to Major1
+     */
+    private Course.MajorType parseMajorType(CsvScanner scanner, int field) {
+        if (scanner.fieldEqualsIgnoreCase(field, "M1") || scanner.fieldEqualsIgnoreCase(field, "MAJOR1")) {
+            return Course.MajorType.Major1;
+        }
+        if (scanner.fieldEqualsIgnoreCase(field, "M2") || scanner.fieldEqualsIgnoreCase(field, "MAJOR2")) {
+            return Course.MajorType.Major2;
+        }
+        if (scanner.fieldEqualsIgnoreCase(field, "GE") || scanner.fieldEqualsIgnoreCase(field, "GENERALEDUCATION")) {
+            return Course.MajorType.GeneralEducation;
+        }
+        if (scanner.fieldEqualsIgnoreCase(field, "M") || scanner.fieldEqualsIgnoreCase(field, "MINOR")) {
+            return Course.MajorType.Minor;
+        }
+        return Course.MajorType.Major1; // Default
+    }
+
+    /**
+     * A single parsed CSV row
+     */
+    private static class CourseRow {
+        final int lineNumber;
+        final String courseName;
+        final String[] prerequisiteNames;
+        final int creditHours;
+        final Course.MajorType majorType;
+        final String description;
+
+        CourseRow(int lineNumber, String courseName, String[] prerequisiteNames, int creditHours,
+                  Course.MajorType majorType, String description) {
+            this.lineNumber = lineNumber;
+            this.courseName = courseName;
+            this.prerequisiteNames = prerequisiteNames;
+            this.creditHours = creditHours;
+            this.majorType = majorType;
+            this.description = description;
+        }
+
+        boolean hasPrerequisites() {
+            return prerequisiteNames.length > 0;
+        }
+
+        /**
+         * Alternatives share a group numbered by their smallest course ID, which stays
+         * the same when the row is imported again; a single prerequisite has no group
+         */
+        Integer alternativeGroup(Map<String, Integer> courseNameToId) {
+            if (prerequisiteNames.length < 2) {
+                return null;
+            }
+            int group = Integer.MAX_VALUE;
+            for (String name : prerequisiteNames) {
+                group = Math.min(group, courseNameToId.get(name));
+            }
+            return group;
+        }
+
+        Course toCourse() {
+            return new Course(courseName, creditHours, majorType, description);
+        }
+
+        static Course toPlaceholderPrerequisite(String prerequisiteName) {
+            // Default values until the prerequisite appears as a course of its own
+            return new Course(prerequisiteName, 0, Course.MajorType.Major1, "Imported as prerequisite");
+        }
+    }
+
+    /**
+     * Writes chunks of parsed rows as JDBC batches, one transaction per chunk
+     */
+    private class BulkWriter {
+        private final Map<String, Integer> courseNameToId;
+        // Tracks stored edges; screens out duplicates and edges that would close a cycle
+        private final IncrementalCycleDetector cycleDetector;
+        // Rethrow a failed batch instead of recording it as an error and moving on
+        private final boolean stopOnFailure;
+        int coursesImported;
+        int prerequisitesImported;
+
+        BulkWriter(Map<String, Integer> courseNameToId, IncrementalCycleDetector cycleDetector) {
+            this(courseNameToId, cycleDetector, false);
+        }
+
+        BulkWriter(Map<String, Integer> courseNameToId, IncrementalCycleDetector cycleDetector,
+                   boolean stopOnFailure) {
+            this.courseNameToId = courseNameToId;
+            this.cycleDetector = cycleDetector;
+            this.stopOnFailure = stopOnFailure;
+        }
+
+        void writeChunk(Connection conn, List<CourseRow> rows, List<String> errors) throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            
+            // Resolve names first so new courses go out in a single batch
+            Map<String, Course> newCourses = new LinkedHashMap<>();
+            for (CourseRow row : rows) {
+                if (!courseNameToId.containsKey(row.courseName)) {
+                    newCourses.putIfAbsent(row.courseName, row.toCourse());
+                }
+                for (String prerequisiteName : row.prerequisiteNames) {
+                    if (!courseNameToId.containsKey(prerequisiteName)) {
+                        newCourses.computeIfAbsent(prerequisiteName, CourseRow::toPlaceholderPrerequisite);
+                    }
+                }
+            }
+            
+            List<Course> courses = new ArrayList<>(newCourses.values());
+            List<Prerequisite> prerequisites = new ArrayList<>();
+            try {
+                courseDAO.insertCoursesBatch(conn, courses);
+                for (Course course : courses) {
+                    courseNameToId.put(course.getCourseName(), course.getCourseId());
+                }
+                
+                for (CourseRow row : rows) {
+                    if (!row.hasPrerequisites()) {
+                        continue;
+                    }
+                    int courseId = courseNameToId.get(row.courseName);
+                    Integer alternativeGroup = row.alternativeGroup(courseNameToId);
+                    for (String prerequisiteName : row.prerequisiteNames) {
+                        int prerequisiteId = courseNameToId.get(prerequisiteName);
+                        if (cycleDetector.containsEdge(courseId, prerequisiteId)) {
+                            continue;
+                        }
+                        if (!cycleDetector.addEdge(courseId, prerequisiteId)) {
+                            errors.add("Line " + row.lineNumber + ": Circular prerequisite "
+                                       + prerequisiteName + " -> " + row.courseName + " rejected");
+                            continue;
+                        }
+                        Prerequisite prerequisite = new Prerequisite(courseId, prerequisiteId, true);
+                        prerequisite.setAlternativeGroup(alternativeGroup);
+                        prerequisites.add(prerequisite);
+                    }
+                }
+                
+                prerequisiteDAO.insertPrerequisitesBatch(conn, prerequisites);
+                conn.commit();
+                courseDAO.publishSaved(courses);
+            } catch (SQLException e) {
+                conn.rollback();
+                for (Course course : courses) {
+                    courseNameToId.remove(course.getCourseName());
+                }
+                for (Prerequisite prerequisite : prerequisites) {
+                    cycleDetector.removeEdge(prerequisite.getCourseId(), prerequisite.getPrerequisiteCourseId());
+                }
+                int firstLine = rows.get(0).lineNumber;
+                int lastLine = rows.get(rows.size() - 1).lineNumber;
+                if (stopOnFailure) {
+                    logger.error("Batch for lines {}-{} rolled back; stopping: {}", firstLine, lastLine, e.getMessage());
+                    throw e;
+                }
+                errors.add("Lines " + firstLine + "-" + lastLine + ": Batch rolled back: " + e.getMessage());
+                logger.warn("Batch for lines {}-{} rolled back: {}", firstLine, lastLine, e.getMessage());
+                return;
+            }
+            
+            coursesImported += courses.size();
+            prerequisitesImported += prerequisites.size();
+            logger.debug("Committed batch for lines {}-{}: {} courses, {} prerequisites",
+                        rows.get(0).lineNumber, rows.get(rows.size() - 1).lineNumber,
+                        courses.size(), prerequisites.size());
+        }
+    }
+
+    /**
+     * What a delta import compares a listed course against: its ID and the columns a feed sets,
+     * with the description reduced to a 64-bit hash
+     */
+    private static class CourseFingerprint {
+        final int courseId;
+        final int creditHours;
+        final Course.MajorType majorType;
+        final long descriptionHash;
+
+        CourseFingerprint(int courseId, int creditHours, Course.MajorType majorType, String description) {
+            this.courseId = courseId;
+            this.creditHours = creditHours;
+            this.majorType = majorType;
+            this.descriptionHash = hash(description);
+        }
+
+        boolean matches(CourseRow row) {
+            return creditHours == row.creditHours && majorType == row.majorType
+                   && descriptionHash == hash(row.description);
+        }
+
+        /**
+         * FNV-1a over the UTF-16 code units; null hashes apart from the empty string
+         */
+        static long hash(String value) {
+            if (value == null) {
+                return 0;
+            }
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Differences between a parsed feed and the current catalog. Edge changes are applied to the
+     * cycle detector as they are planned and undone if the transaction rolls back.
+     */
+    private static class DeltaPlan {
+        private final Map<String, CourseFingerprint> currentCourses;
+        private final Map<Long, Integer> currentEdges;
+        private final Set<String> incompleteCourses;
+        private final IncrementalCycleDetector cycleDetector;
+        // Edges newly added to the detector, removed again on rollback
+        private final List<Prerequisite> trackedEdges = new ArrayList<>();
+        final List<Course> insertedCourses = new ArrayList<>();
+        final List<Course> updatedCourses = new ArrayList<>();
+        final List<Prerequisite> upsertedEdges = new ArrayList<>();
+        final List<Prerequisite> removedEdges = new ArrayList<>();
+        int coursesUnchanged;
+        int prerequisitesInserted;
+        int prerequisitesUpdated;
+        int prerequisitesUnchanged;
+
+        DeltaPlan(Map<String, CourseFingerprint> currentCourses, Map<Long, Integer> currentEdges,
+                  Set<String> incompleteCourses, IncrementalCycleDetector cycleDetector) {
+            this.currentCourses = currentCourses;
+            this.currentEdges = currentEdges;
+            this.incompleteCourses = incompleteCourses;
+            this.cycleDetector = cycleDetector;
+        }
+
+        void diffCourses(List<CourseRow> rows) {
+            Set<String> listed = new HashSet<>();
+            for (CourseRow row : rows) {
+                if (!listed.add(row.courseName)) {
+                    continue;
+                }
+                CourseFingerprint current = currentCourses.get(row.courseName);
+                if (current == null) {
+                    insertedCourses.add(row.toCourse());
+                } else if (current.matches(row)) {
+                    coursesUnchanged++;
+                } else {
+                    Course course = row.toCourse();
+                    course.setCourseId(current.courseId);
+                    updatedCourses.add(course);
+                }
+            }
+            
+            Set<String> placeholders = new HashSet<>();
+            for (CourseRow row : rows) {
+                for (String prerequisiteName : row.prerequisiteNames) {
+                    if (!currentCourses.containsKey(prerequisiteName) && !listed.contains(prerequisiteName)
+                            && placeholders.add(prerequisiteName)) {
+                        insertedCourses.add(CourseRow.toPlaceholderPrerequisite(prerequisiteName));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Plan the edge changes once inserted courses have their IDs. Removed edges leave the cycle
+         * detector before new ones are checked, so a feed may rearrange a chain in one go.
+         */
+        void diffEdges(List<CourseRow> rows, List<String> errors) {
+            Map<String, Integer> courseNameToId = new HashMap<>();
+            for (Map.Entry<String, CourseFingerprint> entry : currentCourses.entrySet()) {
+                courseNameToId.put(entry.getKey(), entry.getValue().courseId);
+            }
+            for (Course course : insertedCourses) {
+                courseNameToId.put(course.getCourseName(), course.getCourseId());
+            }
+            
+            Set<Integer> listedCourseIds = new HashSet<>();
+            Set<Long> listedEdges = new HashSet<>();
+            List<CourseRow> newEdgeRows = new ArrayList<>();
+            List<String> newEdgeNames = new ArrayList<>();
+            List<Prerequisite> newEdges = new ArrayList<>();
+            for (CourseRow row : rows) {
+                int courseId = courseNameToId.get(row.courseName);
+                if (!incompleteCourses.contains(row.courseName)) {
+                    listedCourseIds.add(courseId);
+                }
+                Integer alternativeGroup = row.alternativeGroup(courseNameToId);
+                int group = alternativeGroup != null ? alternativeGroup : 0;
+                for (String prerequisiteName : row.prerequisiteNames) {
+                    int prerequisiteId = courseNameToId.get(prerequisiteName);
+                    long key = edgeKey(courseId, prerequisiteId);
+                    if (!listedEdges.add(key)) {
+                        continue;
+                    }
+                    Integer storedGroup = currentEdges.get(key);
+                    if (storedGroup != null && storedGroup == group) {
+                        prerequisitesUnchanged++;
+                        continue;
+                    }
+                    Prerequisite prerequisite = new Prerequisite(courseId, prerequisiteId, true);
+                    prerequisite.setAlternativeGroup(alternativeGroup);
+                    if (storedGroup != null) {
+                        upsertedEdges.add(prerequisite);
+                        prerequisitesUpdated++;
+                    } else {
+                        newEdgeRows.add(row);
+                        newEdgeNames.add(prerequisiteName);
+                        newEdges.add(prerequisite);
+                    }
+                }
+            }
+            
+            for (long key : currentEdges.keySet()) {
+                int courseId = (int) (key >>> 32);
+                int prerequisiteId = (int) key;
+                if (listedCourseIds.contains(courseId) && !listedEdges.contains(key)) {
+                    removedEdges.add(new Prerequisite(courseId, prerequisiteId, true));
+                    cycleDetector.removeEdge(courseId, prerequisiteId);
+                }
+            }
+            
+            for (int i = 0; i < newEdges.size(); i++) {
+                Prerequisite prerequisite = newEdges.get(i);
+                int courseId = prerequisite.getCourseId();
+                int prerequisiteId = prerequisite.getPrerequisiteCourseId();
+                if (!cycleDetector.containsEdge(courseId, prerequisiteId)) {
+                    if (!cycleDetector.addEdge(courseId, prerequisiteId)) {
+                        CourseRow row = newEdgeRows.get(i);
+                        errors.add("Line " + row.lineNumber + ": Circular prerequisite "
+                                   + newEdgeNames.get(i) + " -> " + row.courseName + " rejected");
+                        continue;
+                    }
+                    trackedEdges.add(prerequisite);
+                }
+                upsertedEdges.add(prerequisite);
+                prerequisitesInserted++;
+            }
+        }
+
+        void restoreCycleDetector() {
+            for (Prerequisite edge : trackedEdges) {
+                cycleDetector.removeEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
+            }
+            for (Prerequisite edge : removedEdges) {
+                cycleDetector.addEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
+            }
+        }
+    }
+
+    /**
+     * Numbered block of whole CSV records, as bytes of the mapped file
+     */
+    private static class LineBlock {
+        final int sequence;
+        final int firstLineNumber;
+        final ByteBuffer bytes;
+
+        LineBlock(int sequence, int firstLineNumber, ByteBuffer bytes) {
+            this.sequence = sequence;
+            this.firstLineNumber = firstLineNumber;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A parsed block, or the end of input, or a failure of the reader or a worker
+     */
+    private static class ParsedBlock {
+        final int sequence;
+        final List<CourseRow> rows;
+        final List<String> errors;
+        final Exception failure;
+
+        ParsedBlock(int sequence, List<CourseRow> rows, List<String> errors, Exception failure) {
+            this.sequence = sequence;
+            this.rows = rows;
+            this.errors = errors;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Reader and parse stages of a pipelined import. Blocks are handed to the writer in file
+     * order; a semaphore bounds the blocks between the reader and the writer, including those
+     * parsed early and held back until their predecessors are written.
+     */
+    private class ImportPipeline {
+        private final String filePath;
+        private final int batchSize;
+        private final int parserThreads;
+        private final Semaphore window;
+        private final BlockingQueue<LineBlock> lineBlocks;
+        private final BlockingQueue<ParsedBlock> parsedBlocks = new LinkedBlockingQueue<>();
+        private final Map<Integer, ParsedBlock> heldBack = new HashMap<>();
+        private ExecutorService executor;
+        private int nextSequence;
+        private int blockCount = -1;
+        private boolean released;
+        volatile int lineCount;
+
+        ImportPipeline(String filePath, int batchSize, int parserThreads) {
+            this.filePath = filePath;
+            this.batchSize = batchSize;
+            this.parserThreads = parserThreads;
+            this.window = new Semaphore(2 * parserThreads);
+            // Room for every block the window admits plus the end marker
+            this.lineBlocks = new ArrayBlockingQueue<>(2 * parserThreads + 1);
+        }
+
+        void start() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parserThreads + 1, runnable -> {
+                Thread thread = new Thread(runnable, "csv-import-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.execute(this::read);
+            for (int i = 0; i < parserThreads; i++) {
+                executor.execute(this::parse);
+            }
+        }
+
+        private void read() {
+            int sequence = 0;
+            try (CsvScanner scanner = CsvScanner.open(Paths.get(filePath))) {
+                // Blocks are zero-copy slices of the mapped file; the mark keeps a block in one region
+                int records = 0;
+                int firstLineNumber = 0;
+                scanner.mark();
+                while (scanner.nextRecord()) {
+                    if (records++ == 0) {
+                        firstLineNumber = scanner.lineNumber();
+                    }
+                    if (records == batchSize) {
+                        window.acquire();
+                        lineBlocks.put(new LineBlock(sequence++, firstLineNumber, scanner.sliceFromMark()));
+                        records = 0;
+                        scanner.mark();
+                    }
+                }
+                if (records > 0) {
+                    window.acquire();
+                    lineBlocks.put(new LineBlock(sequence++, firstLineNumber, scanner.sliceFromMark()));
+                }
+                lineCount = (int) scanner.recordCount();
+                lineBlocks.put(new LineBlock(-1, 0, null));
+                parsedBlocks.put(new ParsedBlock(-sequence - 1, null, null, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                parsedBlocks.add(new ParsedBlock(-1, null, null, e));
+            }
+        }
+
+        private void parse() {
+            try {
+                while (true) {
+                    LineBlock block = lineBlocks.take();
+                    if (block.bytes == null) {
+                        // Leave the end marker for the other workers
+                        lineBlocks.put(block);
+                        return;
+                    }
+                    List<CourseRow> rows = new ArrayList<>(batchSize);
+                    List<String> errors = new ArrayList<>();
+                    CsvScanner scanner = new CsvScanner(block.bytes, block.firstLineNumber);
+                    while (scanner.nextRecord()) {
+                        parseInto(scanner, rows, errors);
+                    }
+                    parsedBlocks.put(new ParsedBlock(block.sequence, rows, errors, null));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                parsedBlocks.add(new ParsedBlock(-1, null, null, e));
+            }
+        }
+
+        /**
+         * The next block in file order, or null once every block was handed out
+         */
+        ParsedBlock next() throws IOException {
+            if (released) {
+                // The previous block has been written; admit another one
+                window.release();
+                released = false;
+            }
+            while (blockCount < 0 || nextSequence < blockCount) {
+                ParsedBlock block = heldBack.remove(nextSequence);
+                if (block != null) {
+                    nextSequence++;
+                    released = true;
+                    return block;
+                }
+                try {
+                    block = parsedBlocks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for parsed lines", e);
+                }
+                if (block.failure != null) {
+                    if (block.failure instanceof IOException) {
+                        throw (IOException) block.failure;
+                    }
+                    throw new IOException("Failed to read " + filePath, block.failure);
+                }
+                if (block.rows == null) {
+                    blockCount = -block.sequence - 1;
+                } else {
+                    heldBack.put(block.sequence, block);
+                }
+            }
+            return null;
+        }
+
+        void stop() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
@@ -179,11 +1080,32 @@ public class CSVImportService {
         private final int coursesImported;
         private final int prerequisitesImported;
         private final List<String> errors;
+        private final int errorCount;
+        private final Path errorFile;
+        private final int rowsProcessed;
+        private final long elapsedMillis;
 
         public ImportResult(int coursesImported, int prerequisitesImported, List<String> errors) {
+            this(coursesImported, prerequisitesImported, errors, 0, 0);
+        }
+
+        public ImportResult(int coursesImported, int prerequisitesImported, List<String> errors,
+                            int rowsProcessed, long elapsedMillis) {
+            this(coursesImported, prerequisitesImported, errors, errors.size(), null, rowsProcessed, elapsedMillis);
+        }
+
+        /**
+         * Result whose errors were written to {@code errorFile}, with only a sample of them in {@code errors}
+         */
+        public ImportResult(int coursesImported, int prerequisitesImported, List<String> errors, int errorCount,
+                            Path errorFile, int rowsProcessed, long elapsedMillis) {
             this.coursesImported = coursesImported;
             this.prerequisitesImported = prerequisitesImported;
             this.errors = errors;
+            this.errorCount = errorCount;
+            this.errorFile = errorFile;
+            this.rowsProcessed = rowsProcessed;
+            this.elapsedMillis = elapsedMillis;
         }
 
         public int getCoursesImported() {
@@ -194,18 +1116,107 @@ public class CSVImportService {
             return prerequisitesImported;
         }
 
+        /**
+         * The errors, or a sample of them if they were written to an error file
+         */
         public List<String> getErrors() {
             return errors;
         }
 
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * File holding every error, or null if all of them are in {@link #getErrors()}
+         */
+        public Path getErrorFile() {
+            return errorFile;
+        }
+
         public boolean hasErrors() {
-            return !errors.isEmpty();
+            return errorCount > 0;
+        }
+
+        public int getRowsProcessed() {
+            return rowsProcessed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis > 0 ? rowsProcessed * 1000.0 / elapsedMillis : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ImportResult{courses=%d, prerequisites=%d, errors=%d, rows=%d, rowsPerSecond=%.1f}", 
+                               coursesImported, prerequisitesImported, errorCount,
+                               rowsProcessed, getRowsPerSecond());
+        }
+    }
+
+    /**
+     * Changeset summary of a delta import. The inherited course and prerequisite counts are
+     * the inserted ones.
+     */
+    public static class DeltaImportResult extends ImportResult {
+        private final int coursesUpdated;
+        private final int coursesUnchanged;
+        private final int prerequisitesUpdated;
+        private final int prerequisitesRemoved;
+        private final int prerequisitesUnchanged;
+
+        public DeltaImportResult(int coursesInserted, int coursesUpdated, int coursesUnchanged,
+                                 int prerequisitesInserted, int prerequisitesUpdated, int prerequisitesRemoved,
+                                 int prerequisitesUnchanged, List<String> errors, int rowsProcessed,
+                                 long elapsedMillis) {
+            super(coursesInserted, prerequisitesInserted, errors, rowsProcessed, elapsedMillis);
+            this.coursesUpdated = coursesUpdated;
+            this.coursesUnchanged = coursesUnchanged;
+            this.prerequisitesUpdated = prerequisitesUpdated;
+            this.prerequisitesRemoved = prerequisitesRemoved;
+            this.prerequisitesUnchanged = prerequisitesUnchanged;
+        }
+
+        public int getCoursesUpdated() {
+            return coursesUpdated;
+        }
+
+        public int getCoursesUnchanged() {
+            return coursesUnchanged;
+        }
+
+        public int getPrerequisitesUpdated() {
+            return prerequisitesUpdated;
+        }
+
+        public int getPrerequisitesRemoved() {
+            return prerequisitesRemoved;
+        }
+
+        public int getPrerequisitesUnchanged() {
+            return prerequisitesUnchanged;
+        }
+
+        /**
+         * True if the import wrote anything
+         */
+        public boolean hasChanges() {
+            return getCoursesImported() + coursesUpdated + getPrerequisitesImported()
+                   + prerequisitesUpdated + prerequisitesRemoved > 0;
         }
 
         @Override
         public String toString() {
-            return String.format("ImportResult{courses=%d, prerequisites=%d, errors=%d}", 
-                               coursesImported, prerequisitesImported, errors.size());
+            return String.format("DeltaImportResult{courses: %d inserted, %d updated, %d unchanged; "
+                               + "prerequisites: %d inserted, %d updated, %d removed, %d unchanged; "
+                               + "errors=%d, rows=%d, rowsPerSecond=%.1f}",
+                               getCoursesImported(), coursesUpdated, coursesUnchanged,
+                               getPrerequisitesImported(), prerequisitesUpdated, prerequisitesRemoved,
+                               prerequisitesUnchanged, getErrorCount(), getRowsProcessed(), getRowsPerSecond());
         }
     }
 }
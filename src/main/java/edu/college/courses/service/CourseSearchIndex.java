@@ -0,0 +1,542 @@
+package edu.college.courses.service;
+
+import edu.college.courses.dao.CourseDAO;
+import edu.college.courses.model.Course;
+import edu.college.courses.model.KeysetCursor;
+import edu.college.courses.model.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search over course names and descriptions, kept current through a
+ * {@link CourseDAO.CourseChangeListener}.
+ *
+ * Substring queries intersect the trigram posting lists of the query and verify the few
+ * remaining candidates, instead of scanning every description like {@code LIKE '%x%'}.
+ * Every one- and two-character substring is indexed as well, so the first keystrokes of a
+ * query are answered from a single posting list. Text is folded to lower case without
+ * accents before it is indexed or matched, like MySQL's default accent- and case-insensitive
+ * collation.
+ * Keyword queries rank courses by BM25 over a word inverted index, with name matches weighted
+ * above description matches. Name prefixes are completed from a sorted map.
+ *
+ * Every indexed version of a course gets a new document number, so posting lists stay sorted
+ * by appending. Updates and deletes leave tombstones that queries skip; the index is rebuilt
+ * from its live documents once tombstones outnumber them.
+ */
+public class CourseSearchIndex implements CourseDAO.CourseChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    // Weight of a word in the course name relative to the same word in the description
+    private static final int NAME_WEIGHT = 3;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final int MIN_COMPACTION_TOMBSTONES = 1024;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document number -> indexed course, null once superseded or deleted
+    private Course[] documents = new Course[64];
+    private String[] lowerNames = new String[64];
+    private String[] lowerDescriptions = new String[64];
+    private int[] lengths = new int[64];
+    private int documentCount;
+    private int liveCount;
+    private long totalLength;
+
+    // Courses changed through the listener while build() is still reading pages; their page rows
+    // may predate the change and are skipped. Null once loading is done.
+    private Set<Integer> changedWhileLoading = new HashSet<>();
+
+    private final Map<Integer, Integer> documentByCourseId = new HashMap<>();
+    // Postings of every substring of one to three characters, keyed by gramKey
+    private final Map<Long, IntList> gramPostings = new HashMap<>();
+    private final Map<String, WordPostings> wordPostings = new HashMap<>();
+    private final TreeMap<String, Integer> documentByName = new TreeMap<>();
+
+    /**
+     * Index every course and keep the index current with the writes made through the DAO
+     */
+    public static CourseSearchIndex build(CourseDAO courseDAO) throws SQLException {
+        long startTime = System.nanoTime();
+        CourseSearchIndex index = new CourseSearchIndex();
+        // Listen first, so no write is missed while loading. A change that arrives while loading
+        // wins over the page row of the same course, which may have been read before it.
+        courseDAO.addChangeListener(index);
+
+        try {
+            Page<Course> page = courseDAO.findPage(null, CourseDAO.MAX_PAGE_SIZE);
+            while (true) {
+                index.lock.writeLock().lock();
+                try {
+                    for (Course course : page.getItems()) {
+                        if (!index.changedWhileLoading.contains(course.getCourseId())) {
+                            index.put(course);
+                        }
+                    }
+                    if (!page.hasNext()) {
+                        index.changedWhileLoading = null;
+                        break;
+                    }
+                } finally {
+                    index.lock.writeLock().unlock();
+                }
+                KeysetCursor next = page.getNextCursor();
+                page = courseDAO.findPage(next, CourseDAO.MAX_PAGE_SIZE);
+            }
+        } catch (SQLException | RuntimeException e) {
+            courseDAO.removeChangeListener(index);
+            throw e;
+        }
+
+        logger.info("Indexed {} courses ({} n-grams, {} words) in {} ms", index.size(),
+                   index.gramPostings.size(), index.wordPostings.size(), (System.nanoTime() - startTime) / 1_000_000);
+        return index;
+    }
+
+    @Override
+    public void courseSaved(Course course) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(course.getCourseId());
+            }
+            put(course);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void courseDeleted(int courseId) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(courseId);
+            }
+            remove(courseId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Courses whose name or description contains {@code term}, ignoring case and accents,
+     * ordered by name. Same matches as {@link CourseDAO#searchCourses} under the default
+     * collation, except for the few characters that collation equates beyond case and accents
+     * (such as the German sharp s and {@code ss}).
+     */
+    public List<Course> search(String term, int limit) {
+        String query = fold(term);
+        lock.readLock().lock();
+        try {
+            if (query.isEmpty()) {
+                List<Integer> all = new ArrayList<>();
+                for (int doc : documentByName.values()) {
+                    if (all.size() >= limit) {
+                        break;
+                    }
+                    all.add(doc);
+                }
+                return toCourses(all, limit);
+            }
+            // Up to three characters the posting list is exact; longer queries verify candidates
+            int[] candidates = gramCandidates(query);
+            boolean verify = query.length() > 3;
+
+            // Keep the first matches by name in a max-heap rather than sorting every match
+            Comparator<Integer> byName = Comparator.comparing(doc -> lowerNames[doc]);
+            PriorityQueue<Integer> first = new PriorityQueue<>(byName.reversed());
+            for (int doc : candidates) {
+                if (limit <= 0) {
+                    break;
+                }
+                if (documents[doc] == null || (verify && !containsQuery(doc, query))) {
+                    continue;
+                }
+                if (first.size() < limit) {
+                    first.add(doc);
+                } else if (lowerNames[doc].compareTo(lowerNames[first.peek()]) < 0) {
+                    first.poll();
+                    first.add(doc);
+                }
+            }
+            List<Integer> matches = new ArrayList<>(first);
+            matches.sort(byName);
+            return toCourses(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Courses matching any word of the query, best match first
+     */
+    public List<Course> rankedSearch(String query, int limit) {
+        Set<String> terms = new HashSet<>(tokenize(fold(query)));
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / liveCount);
+            double[] scores = new double[documentCount];
+            IntList matched = new IntList();
+            for (String term : terms) {
+                WordPostings postings = wordPostings.get(term);
+                if (postings == null || postings.live == 0) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (liveCount - postings.live + 0.5) / (postings.live + 0.5));
+                for (int i = 0; i < postings.documents.size; i++) {
+                    int doc = postings.documents.values[i];
+                    if (documents[doc] == null) {
+                        continue;
+                    }
+                    if (scores[doc] == 0.0) {
+                        matched.add(doc);
+                    }
+                    double weight = postings.weights.values[i];
+                    double norm = BM25_K1 * (1.0 - BM25_B + BM25_B * lengths[doc] / averageLength);
+                    scores[doc] += idf * weight * (BM25_K1 + 1.0) / (weight + norm);
+                }
+            }
+
+            // Keep the best matches in a min-heap rather than sorting every match
+            Comparator<Integer> byRank = (a, b) -> {
+                int byScore = Double.compare(scores[b], scores[a]);
+                return byScore != 0 ? byScore : lowerNames[a].compareTo(lowerNames[b]);
+            };
+            PriorityQueue<Integer> best = new PriorityQueue<>(byRank.reversed());
+            for (int i = 0; i < matched.size && limit > 0; i++) {
+                best.add(matched.values[i]);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Integer> ranked = new ArrayList<>(best);
+            ranked.sort(byRank);
+            return toCourses(ranked, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Names of up to {@code limit} courses starting with {@code prefix} (ignoring case and
+     * accents), in name order
+     */
+    public List<String> complete(String prefix, int limit) {
+        String from = fold(prefix);
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Integer> range = documentByName.subMap(from, true, from + Character.MAX_VALUE, true);
+            List<String> names = new ArrayList<>();
+            for (int doc : range.values()) {
+                if (names.size() == limit) {
+                    break;
+                }
+                names.add(documents[doc].getCourseName());
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Course course) {
+        remove(course.getCourseId());
+
+        int doc = documentCount++;
+        if (doc == documents.length) {
+            int capacity = doc * 2;
+            documents = Arrays.copyOf(documents, capacity);
+            lowerNames = Arrays.copyOf(lowerNames, capacity);
+            lowerDescriptions = Arrays.copyOf(lowerDescriptions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        String name = fold(course.getCourseName());
+        String description = course.getDescription() != null ? fold(course.getDescription()) : "";
+        documents[doc] = copy(course);
+        lowerNames[doc] = name;
+        lowerDescriptions[doc] = description;
+        documentByCourseId.put(course.getCourseId(), doc);
+        documentByName.put(name, doc);
+        liveCount++;
+
+        Set<Long> grams = new HashSet<>();
+        addGrams(name, grams);
+        addGrams(description, grams);
+        for (long gram : grams) {
+            gramPostings.computeIfAbsent(gram, key -> new IntList()).add(doc);
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        List<String> nameWords = tokenize(name);
+        List<String> descriptionWords = tokenize(description);
+        for (String word : nameWords) {
+            weights.merge(word, NAME_WEIGHT, Integer::sum);
+        }
+        for (String word : descriptionWords) {
+            weights.merge(word, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            WordPostings postings = wordPostings.computeIfAbsent(entry.getKey(), key -> new WordPostings());
+            postings.documents.add(doc);
+            postings.weights.add(entry.getValue());
+            postings.live++;
+        }
+        lengths[doc] = NAME_WEIGHT * nameWords.size() + descriptionWords.size();
+        totalLength += lengths[doc];
+    }
+
+    /**
+     * Tombstone the live document of a course; its postings stay until the next compaction
+     */
+    private void remove(int courseId) {
+        Integer doc = documentByCourseId.remove(courseId);
+        if (doc == null) {
+            return;
+        }
+        documentByName.remove(lowerNames[doc], doc);
+        for (String word : new HashSet<>(tokenize(lowerNames[doc] + " " + lowerDescriptions[doc]))) {
+            WordPostings postings = wordPostings.get(word);
+            if (postings != null) {
+                postings.live--;
+            }
+        }
+        totalLength -= lengths[doc];
+        documents[doc] = null;
+        lowerNames[doc] = null;
+        lowerDescriptions[doc] = null;
+        liveCount--;
+    }
+
+    private void compactIfNeeded() {
+        int tombstones = documentCount - liveCount;
+        if (tombstones < MIN_COMPACTION_TOMBSTONES || tombstones < liveCount) {
+            return;
+        }
+        List<Course> live = new ArrayList<>(liveCount);
+        for (int doc = 0; doc < documentCount; doc++) {
+            if (documents[doc] != null) {
+                live.add(documents[doc]);
+            }
+        }
+        documents = new Course[Math.max(64, live.size() * 2)];
+        lowerNames = new String[documents.length];
+        lowerDescriptions = new String[documents.length];
+        lengths = new int[documents.length];
+        documentCount = 0;
+        liveCount = 0;
+        totalLength = 0;
+        documentByCourseId.clear();
+        gramPostings.clear();
+        wordPostings.clear();
+        documentByName.clear();
+        for (Course course : live) {
+            put(course);
+        }
+        logger.debug("Compacted search index: dropped {} tombstones, {} courses remain", tombstones, liveCount);
+    }
+
+    /**
+     * Documents containing the query if it is at most three characters long, otherwise every
+     * trigram of it, by intersecting posting lists smallest first
+     */
+    private int[] gramCandidates(String query) {
+        if (query.length() <= 3) {
+            IntList postings = gramPostings.get(gramKey(query, 0, query.length()));
+            return postings != null ? Arrays.copyOf(postings.values, postings.size) : new int[0];
+        }
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            trigrams.add(gramKey(query, i, 3));
+        }
+        List<IntList> lists = new ArrayList<>(trigrams.size());
+        for (long trigram : trigrams) {
+            IntList postings = gramPostings.get(trigram);
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int count = candidates.length;
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            IntList other = lists.get(l);
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                j = seek(other, j, doc);
+                if (j < other.size && other.values[j] == doc) {
+                    candidates[kept++] = doc;
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * First position at or after {@code from} whose document is not below {@code doc}, by
+     * galloping, so a short candidate list skips through a long posting list quickly
+     */
+    private static int seek(IntList list, int from, int doc) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < list.size && list.values[high] < doc) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, list.size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.values[mid] < doc) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean containsQuery(int doc, String query) {
+        return lowerNames[doc].contains(query) || lowerDescriptions[doc].contains(query);
+    }
+
+    private List<Course> toCourses(List<Integer> docs, int limit) {
+        List<Course> courses = new ArrayList<>(Math.min(limit, docs.size()));
+        for (int doc : docs) {
+            if (courses.size() == limit) {
+                break;
+            }
+            courses.add(copy(documents[doc]));
+        }
+        return courses;
+    }
+
+    /**
+     * Add every substring of one to three characters
+     */
+    private static void addGrams(String text, Set<Long> grams) {
+        for (int i = 0; i < text.length(); i++) {
+            for (int length = 1; length <= 3 && i + length <= text.length(); length++) {
+                grams.add(gramKey(text, i, length));
+            }
+        }
+    }
+
+    /**
+     * Up to three UTF-16 units packed below their count, so grams of different lengths differ
+     */
+    private static long gramKey(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * Lower case without accents: decomposed, with combining marks dropped
+     */
+    private static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Split lower-case text into runs of letters and digits
+     */
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static Course copy(Course course) {
+        return new Course(course.getCourseId(), course.getCourseName(), course.getCreditHours(),
+                          course.getMajorType(), course.getDescription(),
+                          course.getCreatedAt(), course.getUpdatedAt());
+    }
+
+    @Override
+    public String toString() {
+        lock.readLock().lock();
+        try {
+            return String.format("CourseSearchIndex{courses=%d, tombstones=%d, grams=%d, words=%d}",
+                               liveCount, documentCount - liveCount, gramPostings.size(), wordPostings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static class WordPostings {
+        final IntList documents = new IntList();
+        final IntList weights = new IntList();
+        // Postings of documents that are not tombstoned, the document frequency for ranking
+        int live;
+    }
+}
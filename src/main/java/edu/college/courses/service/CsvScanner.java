@@ -0,0 +1,421 @@
+package edu.college.courses.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 CSV scanner over UTF-8 bytes, reading a file through memory-mapped regions.
+ *
+ * {@link #nextRecord()} only records where each field starts and ends in the buffer; nothing is
+ * decoded until a field is asked for, and integer fields are parsed straight from the bytes.
+ * Fields may be quoted, with {@code ""} standing for a quote and commas and line breaks allowed
+ * inside the quotes. Records end with LF or CRLF, and a UTF-8 byte order mark is skipped.
+ * As a leniency, text after a closing quote is kept as part of the field.
+ *
+ * Large files are mapped {@link #REGION_BYTES} at a time. A record that runs past the end of a
+ * region is scanned again from a new region starting at the record, or at the {@link #mark()}
+ * if one is set, so a marked range of records always stays in one buffer.
+ */
+public class CsvScanner implements Closeable {
+    /** Bytes mapped at a time; a region grows if a single record or marked range needs more */
+    public static final int REGION_BYTES = 64 * 1024 * 1024;
+
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    private ByteBuffer buffer;
+    // File offset of buffer index 0
+    private long regionStart;
+    private int regionBytes = REGION_BYTES;
+
+    private int position;
+    private long mark = -1;
+    private long recordStart;
+    private int recordEnd;
+    private int lineNumber;
+    private int nextLineNumber;
+    private long recordCount;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    private CsvScanner(FileChannel channel, long fileSize, ByteBuffer buffer, int firstLineNumber) {
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.buffer = buffer;
+        this.nextLineNumber = firstLineNumber;
+    }
+
+    /**
+     * Scan bytes already in memory, e.g. a slice handed over from another scanner.
+     * Line numbers start at {@code firstLineNumber}.
+     */
+    public CsvScanner(ByteBuffer bytes, int firstLineNumber) {
+        this(null, bytes.remaining(), bytes.slice(), firstLineNumber);
+    }
+
+    /**
+     * Open a file for scanning from its first line
+     */
+    public static CsvScanner open(Path file) throws IOException {
+        return open(file, 0, 1);
+    }
+
+    /**
+     * Open a file for scanning from a record boundary, e.g. a {@link #recordEnd()} saved by an
+     * earlier scan, numbering lines from {@code firstLineNumber}
+     */
+    public static CsvScanner open(Path file, long offset, int firstLineNumber) throws IOException {
+        return open(file, offset, firstLineNumber, REGION_BYTES);
+    }
+
+    /**
+     * Open a file mapping {@code regionBytes} at a time; small regions exercise remapping in tests
+     */
+    static CsvScanner open(Path file, long offset, int firstLineNumber, int regionBytes) throws IOException {
+        if (regionBytes <= 0) {
+            throw new IllegalArgumentException("Region size must be positive: " + regionBytes);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (offset < 0 || offset > size) {
+                throw new IOException("Offset " + offset + " is outside " + file + " (" + size + " bytes)");
+            }
+            CsvScanner scanner = new CsvScanner(channel, size, null, firstLineNumber);
+            scanner.regionBytes = regionBytes;
+            scanner.map(offset);
+            if (offset == 0 && scanner.buffer.limit() >= 3 && (scanner.buffer.get(0) & 0xFF) == 0xEF
+                    && (scanner.buffer.get(1) & 0xFF) == 0xBB && (scanner.buffer.get(2) & 0xFF) == 0xBF) {
+                scanner.position = 3;
+            }
+            return scanner;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advance to the next record. Returns false at the end of the input.
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            if (position >= limit && regionStart + limit >= fileSize) {
+                fieldCount = 0;
+                return false;
+            }
+
+            int start = position;
+            int fieldStart = start;
+            boolean quoted = false;
+            boolean inQuotes = false;
+            int quotedLineBreaks = 0;
+            fieldCount = 0;
+
+            int i = start;
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == QUOTE) {
+                    inQuotes = !inQuotes;
+                    quoted = true;
+                } else if (inQuotes) {
+                    if (b == LF) {
+                        quotedLineBreaks++;
+                    }
+                } else if (b == COMMA) {
+                    addField(fieldStart, i, quoted);
+                    fieldStart = i + 1;
+                    quoted = false;
+                } else if (b == LF) {
+                    int end = i > fieldStart && buffer.get(i - 1) == CR ? i - 1 : i;
+                    addField(fieldStart, end, quoted);
+                    finishRecord(start, i + 1, quotedLineBreaks);
+                    return true;
+                }
+            }
+
+            if (regionStart + limit >= fileSize) {
+                // Last record without a trailing line break
+                addField(fieldStart, i, quoted);
+                finishRecord(start, i, quotedLineBreaks);
+                return true;
+            }
+
+            // The record runs past this region: map again from the record or the mark and rescan
+            long recordOffset = regionStart + start;
+            long keepFrom = mark >= 0 ? mark : recordOffset;
+            if (keepFrom == regionStart) {
+                if (regionBytes == Integer.MAX_VALUE) {
+                    throw new IOException("CSV data from byte " + keepFrom + " does not fit in a 2 GB region");
+                }
+                regionBytes = (int) Math.min(Integer.MAX_VALUE, 2L * regionBytes);
+            }
+            map(keepFrom);
+            position = (int) (recordOffset - regionStart);
+        }
+    }
+
+    private void finishRecord(int start, int end, int quotedLineBreaks) {
+        recordStart = regionStart + start;
+        recordEnd = end;
+        position = end;
+        lineNumber = nextLineNumber;
+        nextLineNumber += 1 + quotedLineBreaks;
+        recordCount++;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == fieldStarts.length) {
+            int capacity = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+            fieldEnds = Arrays.copyOf(fieldEnds, capacity);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, capacity);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    private void map(long from) throws IOException {
+        long size = Math.min(regionBytes, fileSize - from);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        regionStart = from;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Line on which the current record starts, counting line breaks inside quoted fields
+     */
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Line on which the next record starts
+     */
+    public int nextLineNumber() {
+        return nextLineNumber;
+    }
+
+    /**
+     * Number of records read so far
+     */
+    public long recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * File offset of the current record
+     */
+    public long recordStart() {
+        return recordStart;
+    }
+
+    /**
+     * File offset just past the current record and its line break
+     */
+    public long recordEnd() {
+        return regionStart + recordEnd;
+    }
+
+    /**
+     * Keep the bytes from the next record on in one buffer until the next call, so that
+     * {@link #sliceFromMark()} can hand them out without copying
+     */
+    public void mark() {
+        mark = regionStart + position;
+    }
+
+    /**
+     * The bytes from the mark through the end of the current record, sharing this scanner's buffer
+     */
+    public ByteBuffer sliceFromMark() {
+        if (mark < 0) {
+            throw new IllegalStateException("No mark set");
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(recordEnd).position((int) (mark - regionStart));
+        return slice.slice();
+    }
+
+    /**
+     * Decoded field, with quotes removed and {@code ""} unescaped
+     */
+    public String field(int index) {
+        checkIndex(index);
+        return decode(fieldStarts[index], fieldEnds[index], fieldQuoted[index]);
+    }
+
+    /**
+     * Decoded field without surrounding whitespace. Whitespace inside quotes is trimmed too,
+     * as the importer has always done.
+     */
+    public String trimmedField(int index) {
+        checkIndex(index);
+        int start = skipWhitespace(fieldStarts[index], fieldEnds[index]);
+        int end = trimWhitespace(start, fieldEnds[index]);
+        if (!fieldQuoted[index]) {
+            return decode(start, end, false);
+        }
+        return decode(start, end, true).trim();
+    }
+
+    /**
+     * True if the field holds nothing but whitespace
+     */
+    public boolean isBlank(int index) {
+        checkIndex(index);
+        if (fieldQuoted[index]) {
+            return trimmedField(index).isEmpty();
+        }
+        return skipWhitespace(fieldStarts[index], fieldEnds[index]) == fieldEnds[index];
+    }
+
+    /**
+     * Parse a decimal integer field, ignoring surrounding whitespace, without building a string.
+     * Throws a {@link NumberFormatException} worded like {@link Integer#parseInt(String)}'s.
+     */
+    public int intField(int index) {
+        checkIndex(index);
+        if (fieldQuoted[index]) {
+            return Integer.parseInt(trimmedField(index));
+        }
+        int start = skipWhitespace(fieldStarts[index], fieldEnds[index]);
+        int end = trimWhitespace(start, fieldEnds[index]);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber(start, end);
+        }
+        // Accumulate negatively so Integer.MIN_VALUE fits
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(start, end);
+            }
+            value = value * 10 - digit;
+            if (value < Integer.MIN_VALUE) {
+                throw invalidNumber(start, end);
+            }
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            throw invalidNumber(start, end);
+        }
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Compare a trimmed, unquoted field with ASCII text, ignoring case, without decoding it
+     */
+    public boolean fieldEqualsIgnoreCase(int index, String ascii) {
+        checkIndex(index);
+        if (fieldQuoted[index]) {
+            return trimmedField(index).equalsIgnoreCase(ascii);
+        }
+        int start = skipWhitespace(fieldStarts[index], fieldEnds[index]);
+        int end = trimWhitespace(start, fieldEnds[index]);
+        if (end - start != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            int b = buffer.get(start + i);
+            int c = ascii.charAt(i);
+            if (b != c && toLowerAscii(b) != toLowerAscii(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+    }
+
+    private String decode(int start, int end, boolean quoted) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int n = 0;
+        if (!quoted) {
+            for (int i = start; i < end; i++) {
+                scratch[n++] = buffer.get(i);
+            }
+        } else {
+            boolean inQuotes = false;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b != QUOTE) {
+                    scratch[n++] = b;
+                } else if (inQuotes && i + 1 < end && buffer.get(i + 1) == QUOTE) {
+                    scratch[n++] = QUOTE;
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private int skipWhitespace(int start, int end) {
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimWhitespace(int start, int end) {
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private NumberFormatException invalidNumber(int start, int end) {
+        return new NumberFormatException("For input string: \"" + decode(start, end, false) + "\"");
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // Same set as String.trim(): ASCII control characters and space
+        return (b & 0xFF) <= ' ';
+    }
+
+    private static int toLowerAscii(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,217 @@
+package edu.college.courses.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Progress of a resumable CSV import, saved after each committed batch so that an interrupted
+ * import continues after the last record it committed.
+ *
+ * A checkpoint records the size and modification time of the CSV file and only applies while
+ * both are unchanged. It is saved to a temporary file that is forced to disk and then renamed
+ * over the previous checkpoint, so a crash leaves one or the other, never a partial file.
+ */
+public class ImportCheckpoint {
+    private static final int FORMAT_VERSION = 1;
+
+    private final long fileSize;
+    private final long fileModifiedMillis;
+    private final long batchId;
+    private final long byteOffset;
+    private final int nextLineNumber;
+    private final int rowsProcessed;
+    private final int coursesImported;
+    private final int prerequisitesImported;
+    private final int errorCount;
+    private final long errorFileBytes;
+    private final boolean errorFileTruncated;
+
+    public ImportCheckpoint(long fileSize, long fileModifiedMillis, long batchId, long byteOffset,
+                            int nextLineNumber, int rowsProcessed, int coursesImported,
+                            int prerequisitesImported, int errorCount, long errorFileBytes,
+                            boolean errorFileTruncated) {
+        this.fileSize = fileSize;
+        this.fileModifiedMillis = fileModifiedMillis;
+        this.batchId = batchId;
+        this.byteOffset = byteOffset;
+        this.nextLineNumber = nextLineNumber;
+        this.rowsProcessed = rowsProcessed;
+        this.coursesImported = coursesImported;
+        this.prerequisitesImported = prerequisitesImported;
+        this.errorCount = errorCount;
+        this.errorFileBytes = errorFileBytes;
+        this.errorFileTruncated = errorFileTruncated;
+    }
+
+    /**
+     * Checkpoint before the first batch of a CSV file
+     */
+    public static ImportCheckpoint start(Path csvFile) throws IOException {
+        return new ImportCheckpoint(Files.size(csvFile), Files.getLastModifiedTime(csvFile).toMillis(),
+                                    0, 0, 1, 0, 0, 0, 0, 0, false);
+    }
+
+    /**
+     * True if the CSV file still has the size and modification time this checkpoint was taken for
+     */
+    public boolean matches(Path csvFile) throws IOException {
+        return Files.size(csvFile) == fileSize && Files.getLastModifiedTime(csvFile).toMillis() == fileModifiedMillis;
+    }
+
+    /**
+     * Checkpoint after the next committed batch; counts are totals since the first batch
+     */
+    public ImportCheckpoint next(long byteOffset, int nextLineNumber, int rowsProcessed, int coursesImported,
+                                 int prerequisitesImported, int errorCount, long errorFileBytes,
+                                 boolean errorFileTruncated) {
+        return new ImportCheckpoint(fileSize, fileModifiedMillis, batchId + 1, byteOffset, nextLineNumber,
+                                    rowsProcessed, coursesImported, prerequisitesImported, errorCount,
+                                    errorFileBytes, errorFileTruncated);
+    }
+
+    /**
+     * Read a saved checkpoint, or return null if there is none
+     */
+    public static ImportCheckpoint load(Path file) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        properties.load(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+        try {
+            int version = Integer.parseInt(required(properties, "version", file));
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + " in " + file);
+            }
+            return new ImportCheckpoint(
+                    Long.parseLong(required(properties, "file.size", file)),
+                    Long.parseLong(required(properties, "file.modified", file)),
+                    Long.parseLong(required(properties, "batch", file)),
+                    Long.parseLong(required(properties, "offset", file)),
+                    Integer.parseInt(required(properties, "line", file)),
+                    Integer.parseInt(required(properties, "rows", file)),
+                    Integer.parseInt(required(properties, "courses", file)),
+                    Integer.parseInt(required(properties, "prerequisites", file)),
+                    Integer.parseInt(required(properties, "errors", file)),
+                    Long.parseLong(required(properties, "errors.bytes", file)),
+                    Boolean.parseBoolean(required(properties, "errors.truncated", file)));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed checkpoint " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String required(Properties properties, String key, Path file) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IOException("Checkpoint " + file + " has no " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Replace the checkpoint at {@code file} atomically
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("version", Integer.toString(FORMAT_VERSION));
+        properties.setProperty("file.size", Long.toString(fileSize));
+        properties.setProperty("file.modified", Long.toString(fileModifiedMillis));
+        properties.setProperty("batch", Long.toString(batchId));
+        properties.setProperty("offset", Long.toString(byteOffset));
+        properties.setProperty("line", Integer.toString(nextLineNumber));
+        properties.setProperty("rows", Integer.toString(rowsProcessed));
+        properties.setProperty("courses", Integer.toString(coursesImported));
+        properties.setProperty("prerequisites", Integer.toString(prerequisitesImported));
+        properties.setProperty("errors", Integer.toString(errorCount));
+        properties.setProperty("errors.bytes", Long.toString(errorFileBytes));
+        properties.setProperty("errors.truncated", Boolean.toString(errorFileTruncated));
+        StringWriter text = new StringWriter();
+        properties.store(text, "CSV import checkpoint");
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Remove a checkpoint once its import has finished
+     */
+    public static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Number of batches committed so far
+     */
+    public long getBatchId() {
+        return batchId;
+    }
+
+    /**
+     * File offset of the first record not yet committed
+     */
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    /**
+     * Line on which the first record not yet committed starts
+     */
+    public int getNextLineNumber() {
+        return nextLineNumber;
+    }
+
+    public int getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public int getCoursesImported() {
+        return coursesImported;
+    }
+
+    public int getPrerequisitesImported() {
+        return prerequisitesImported;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Length of the error file when the checkpoint was taken
+     */
+    public long getErrorFileBytes() {
+        return errorFileBytes;
+    }
+
+    public boolean isErrorFileTruncated() {
+        return errorFileTruncated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportCheckpoint{batch=%d, offset=%d, line=%d, rows=%d, errors=%d}",
+                           batchId, byteOffset, nextLineNumber, rowsProcessed, errorCount);
+    }
+}
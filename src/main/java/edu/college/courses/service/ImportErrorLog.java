@@ -0,0 +1,151 @@
+package edu.college.courses.service;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-line import errors written to a file, one per line, so that memory stays bounded however
+ * many rows fail. All errors are counted; only the first few are kept in memory as a sample.
+ * The file stops growing at a size limit, with a closing note that further errors were omitted.
+ */
+public class ImportErrorLog implements Closeable {
+    /** Errors kept in memory for the import result */
+    public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+    /** Size at which the error file stops growing */
+    public static final long DEFAULT_MAX_FILE_BYTES = 64L * 1024 * 1024;
+
+    private static final byte[] TRUNCATED_NOTE =
+        "... further errors omitted; the error file reached its size limit\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int sampleSize;
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final List<String> sample = new ArrayList<>();
+    private int count;
+    private long fileBytes;
+    private boolean truncated;
+    private boolean unsynced;
+
+    /**
+     * Start a new error file, replacing any previous one
+     */
+    public ImportErrorLog(Path file, long maxFileBytes, int sampleSize) throws IOException {
+        this(file, maxFileBytes, sampleSize, 0, 0, false);
+    }
+
+    /**
+     * Continue an error file from a checkpoint that counted {@code count} errors in its first
+     * {@code fileBytes} bytes; anything written after the checkpoint is cut off
+     */
+    ImportErrorLog(Path file, long maxFileBytes, int sampleSize, int count, long fileBytes, boolean truncated)
+            throws IOException {
+        if (maxFileBytes <= 0 || sampleSize < 0) {
+            throw new IllegalArgumentException("Error file limit must be positive and sample size non-negative");
+        }
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.sampleSize = sampleSize;
+        this.count = count;
+        this.fileBytes = fileBytes;
+        this.truncated = truncated;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < fileBytes) {
+                throw new IOException("Error file " + file + " is shorter than its checkpoint: "
+                                      + channel.size() + " < " + fileBytes + " bytes");
+            }
+            channel.truncate(fileBytes);
+            channel.position(fileBytes);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel));
+    }
+
+    public void add(String error) throws IOException {
+        count++;
+        if (sample.size() < sampleSize) {
+            sample.add(error);
+        }
+        if (truncated) {
+            return;
+        }
+        byte[] line = (error.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+        if (fileBytes + line.length > maxFileBytes) {
+            line = TRUNCATED_NOTE;
+            truncated = true;
+        }
+        out.write(line);
+        fileBytes += line.length;
+        unsynced = true;
+    }
+
+    public void addAll(List<String> errors) throws IOException {
+        for (String error : errors) {
+            add(error);
+        }
+    }
+
+    /**
+     * Write buffered errors through to the disk, e.g. before a checkpoint refers to them
+     */
+    public void sync() throws IOException {
+        if (unsynced) {
+            out.flush();
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Every error added, including those before a resumed checkpoint
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The first errors added since this log was opened
+     */
+    public List<String> getSample() {
+        return Collections.unmodifiableList(sample);
+    }
+
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * True once errors stopped being written because the file reached its limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
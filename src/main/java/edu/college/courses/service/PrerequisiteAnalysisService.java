@@ -2,14 +2,29 @@ package edu.college.courses.service;
 
 import edu.college.courses.dao.CourseDAO;
 import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.graph.CatalogSnapshot;
+import edu.college.courses.graph.CourseDepthIndex;
+import edu.college.courses.graph.EligibilityEvaluator;
+import edu.college.courses.graph.PrerequisiteChains;
+import edu.college.courses.graph.PrerequisiteGraph;
+import edu.college.courses.graph.PrerequisiteRanking;
+import edu.college.courses.graph.ReachabilityIndex;
+import edu.college.courses.graph.StronglyConnectedComponents;
+import edu.college.courses.model.CatalogVersion;
 import edu.college.courses.model.Course;
 import edu.college.courses.model.Prerequisite;
+import edu.college.courses.model.PrerequisiteEdge;
+import edu.college.courses.model.PrerequisiteExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for analyzing prerequisite relationships
@@ -19,10 +34,21 @@ public class PrerequisiteAnalysisService {
     
     private final CourseDAO courseDAO;
     private final PrerequisiteDAO prerequisiteDAO;
+
+    // Last generated report and the catalog version it was generated at
+    private volatile CachedReport cachedReport;
     
     public PrerequisiteAnalysisService() {
-        this.courseDAO = new CourseDAO();
-        this.prerequisiteDAO = new PrerequisiteDAO();
+        this(new CourseDAO(), new PrerequisiteDAO());
+    }
+
+    /**
+     * Use shared DAOs, e.g. a {@link CourseDAO} with a cache
+     */
+    public PrerequisiteAnalysisService(CourseDAO courseDAO, PrerequisiteDAO prerequisiteDAO) {
+        this.courseDAO = courseDAO;
+        this.prerequisiteDAO = prerequisiteDAO;
+        prerequisiteDAO.followCourseDeletes(courseDAO);
     }
 
     /**
@@ -32,6 +58,14 @@ public class PrerequisiteAnalysisService {
         return prerequisiteDAO.getAllPrerequisitesWithDetails();
     }
 
+    /**
+     * Stream all prerequisite relationships as they are read from the database, in course ID
+     * order. The stream must be closed to release its connection.
+     */
+    public Stream<Prerequisite> streamAllPrerequisiteRelationships() throws SQLException {
+        return prerequisiteDAO.streamAllPrerequisitesWithDetails();
+    }
+
     /**
      * Get prerequisites for a specific course
      */
@@ -58,123 +92,271 @@ public class PrerequisiteAnalysisService {
         return prerequisiteDAO.getCoursesRequiringPrerequisite(prerequisite.get().getCourseId());
     }
 
+    /**
+     * Get the AND/OR requirement of a course, e.g. "(Math4530 OR Stat4201)"
+     */
+    public PrerequisiteExpression getPrerequisiteExpression(String courseName) throws SQLException {
+        return PrerequisiteExpression.fromPrerequisites(courseName, getPrerequisitesForCourse(courseName));
+    }
+
+    /**
+     * Load the graph and compile every course's requirement for eligibility checks
+     */
+    public EligibilityEvaluator buildEligibilityEvaluator() throws SQLException {
+        return EligibilityEvaluator.compile(loadGraph());
+    }
+
     /**
      * Find prerequisite chains (courses that have prerequisites of prerequisites)
      */
     public List<List<String>> findPrerequisiteChains(String courseName) throws SQLException {
-        List<List<String>> chains = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-        
-        findPrerequisiteChainsRecursive(courseName, new ArrayList<>(), chains, visited);
-        
-        return chains;
+        Optional<PrerequisiteChains> chains = loadChains(courseName);
+        if (!chains.isPresent()) {
+            return Collections.singletonList(Collections.singletonList(courseName));
+        }
+        return chains.get().stream(courseName, PrerequisiteChains.UNLIMITED, Long.MAX_VALUE)
+                     .collect(Collectors.toList());
+    }
+
+    /**
+     * Count the prerequisite chains of a course without enumerating them
+     */
+    public long countPrerequisiteChains(String courseName) throws SQLException {
+        Optional<PrerequisiteChains> chains = loadChains(courseName);
+        return chains.isPresent() ? chains.get().countChains(courseName) : 0;
     }
 
     /**
-     * Recursive helper for finding prerequisite chains
+     * Stream prerequisite chains lazily, at most {@code limit} chains of at most {@code maxDepth} courses
      */
-    private void findPrerequisiteChainsRecursive(String courseName, List<String> currentChain, 
-                                               List<List<String>> allChains, Set<String> visited) throws SQLException {
-        if (visited.contains(courseName)) {
-            // Circular dependency detected
-            return;
+    public Stream<List<String>> streamPrerequisiteChains(String courseName, int maxDepth, long limit)
+            throws SQLException {
+        Optional<PrerequisiteChains> chains = loadChains(courseName);
+        return chains.isPresent() ? chains.get().stream(courseName, maxDepth, limit) : Stream.empty();
+    }
+
+    /**
+     * Load the ancestor subgraph of a course (one recursive query) for chain enumeration
+     */
+    private Optional<PrerequisiteChains> loadChains(String courseName) throws SQLException {
+        Optional<Course> course = courseDAO.findByName(courseName);
+        if (!course.isPresent()) {
+            logger.warn("Course not found: {}", courseName);
+            return Optional.empty();
         }
         
-        visited.add(courseName);
-        currentChain.add(courseName);
-        
-        List<Prerequisite> prerequisites = getPrerequisitesForCourse(courseName);
-        
-        if (prerequisites.isEmpty()) {
-            // End of chain
-            allChains.add(new ArrayList<>(currentChain));
-        } else {
-            for (Prerequisite prereq : prerequisites) {
-                String prereqName = prereq.getPrerequisiteCourse().getCourseName();
-                findPrerequisiteChainsRecursive(prereqName, new ArrayList<>(currentChain), allChains, new HashSet<>(visited));
+        // Only names and edges matter for chains; credits and major are not loaded
+        PrerequisiteGraph.Builder builder = new PrerequisiteGraph.Builder();
+        Set<Integer> added = new HashSet<>();
+        builder.addCourse(course.get().getCourseId(), courseName, 0, Course.MajorType.Major1);
+        added.add(course.get().getCourseId());
+        List<PrerequisiteEdge> edges = prerequisiteDAO.getPrerequisiteSubgraph(course.get().getCourseId());
+        for (PrerequisiteEdge edge : edges) {
+            if (added.add(edge.getCourseId())) {
+                builder.addCourse(edge.getCourseId(), edge.getCourseName(), 0, Course.MajorType.Major1);
+            }
+            if (added.add(edge.getPrerequisiteCourseId())) {
+                builder.addCourse(edge.getPrerequisiteCourseId(), edge.getPrerequisiteName(), 0, Course.MajorType.Major1);
             }
+            builder.addEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
         }
+        return Optional.of(new PrerequisiteChains(builder.build()));
     }
 
     /**
      * Find courses with no prerequisites
      */
     public List<Course> findCoursesWithNoPrerequisites() throws SQLException {
-        List<Course> allCourses = courseDAO.findAll();
-        List<Course> coursesWithNoPrereqs = new ArrayList<>();
-        
-        for (Course course : allCourses) {
-            List<Prerequisite> prerequisites = prerequisiteDAO.getPrerequisitesForCourse(course.getCourseId());
-            if (prerequisites.isEmpty()) {
-                coursesWithNoPrereqs.add(course);
-            }
-        }
-        
-        return coursesWithNoPrereqs;
+        return courseDAO.findCoursesWithoutPrerequisites();
     }
 
     /**
      * Find courses that are prerequisites for many other courses
      */
     public List<Course> findPopularPrerequisites(int minCount) throws SQLException {
-        List<Prerequisite> allPrerequisites = prerequisiteDAO.getAllPrerequisitesWithDetails();
+        return courseDAO.findCoursesRequiredByAtLeast(minCount);
+    }
+
+    /**
+     * Load an in-memory snapshot of the whole prerequisite graph
+     */
+    public PrerequisiteGraph loadGraph() throws SQLException {
+        return PrerequisiteGraph.load(courseDAO, prerequisiteDAO);
+    }
+
+    /**
+     * Load the graph from a snapshot file if it matches the current catalog version, otherwise
+     * from the database, refreshing the snapshot. Costs one small query when the snapshot is current.
+     * The version has microsecond timestamps, so a change in the same second as the snapshot
+     * was written still makes it stale.
+     */
+    public PrerequisiteGraph loadGraph(Path snapshotFile) throws SQLException {
+        CatalogVersion version = courseDAO.getCatalogVersion();
+        try {
+            if (version.equals(CatalogSnapshot.readVersion(snapshotFile))) {
+                return CatalogSnapshot.open(snapshotFile);
+            }
+            logger.info("Catalog snapshot {} is missing or stale, loading from database", snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Could not read catalog snapshot {}: {}", snapshotFile, e.getMessage());
+        }
         
-        Map<String, Integer> prerequisiteCounts = new HashMap<>();
+        PrerequisiteGraph graph = loadGraph();
+        try {
+            // Tagged with the version read before loading, so concurrent changes only cause a reload
+            CatalogSnapshot.write(graph, version, snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Could not write catalog snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+        return graph;
+    }
+
+    /**
+     * Load the graph and build its transitive-closure index for
+     * "is X an indirect prerequisite of Y" queries
+     */
+    public ReachabilityIndex buildReachabilityIndex() throws SQLException {
+        return ReachabilityIndex.build(loadGraph());
+    }
+
+    /**
+     * Load the graph and compute every course's depth and credit-weighted critical path
+     */
+    public CourseDepthIndex buildDepthIndex() throws SQLException {
+        return CourseDepthIndex.build(loadGraph());
+    }
+
+    /**
+     * Load the graph as the base of a what-if sandbox for proposed catalog edits
+     */
+    public WhatIfSandbox createSandbox() throws SQLException {
+        return new WhatIfSandbox(loadGraph());
+    }
+
+    /**
+     * Load the graph and score every course by transitive unlocked count and centrality
+     */
+    public PrerequisiteRanking buildPrerequisiteRanking() throws SQLException {
+        return PrerequisiteRanking.compute(loadGraph());
+    }
+
+    /**
+     * Find the courses that directly or indirectly unlock the most other courses,
+     * unlike {@link #findPopularPrerequisites(PrerequisiteGraph, int)} which counts direct dependents only
+     */
+    public List<Course> findFoundationalPrerequisites(PrerequisiteGraph graph, int limit) {
+        PrerequisiteRanking ranking = PrerequisiteRanking.compute(graph);
+        List<Course> courses = new ArrayList<>();
+        for (int course : ranking.rankByUnlockedCount(limit)) {
+            if (ranking.unlockedCount(course) > 0) {
+                courses.add(graph.toCourse(course));
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Find prerequisite chains in a loaded graph snapshot.
+     * For large catalogs prefer {@link PrerequisiteChains}, which counts and streams chains lazily.
+     */
+    public List<List<String>> findPrerequisiteChains(PrerequisiteGraph graph, String courseName) {
+        if (graph.indexOf(courseName) < 0) {
+            logger.warn("Course not found: {}", courseName);
+            return Collections.singletonList(Collections.singletonList(courseName));
+        }
         
-        for (Prerequisite prereq : allPrerequisites) {
-            String prereqName = prereq.getPrerequisiteCourse().getCourseName();
-            prerequisiteCounts.put(prereqName, prerequisiteCounts.getOrDefault(prereqName, 0) + 1);
+        return new PrerequisiteChains(graph).stream(courseName, PrerequisiteChains.UNLIMITED, Long.MAX_VALUE)
+                                            .collect(Collectors.toList());
+    }
+
+    /**
+     * Find courses with no prerequisites in a loaded graph snapshot
+     */
+    public List<Course> findCoursesWithNoPrerequisites(PrerequisiteGraph graph) {
+        List<Course> courses = new ArrayList<>();
+        for (int v = 0; v < graph.size(); v++) {
+            if (graph.prerequisiteCount(v) == 0) {
+                courses.add(graph.toCourse(v));
+            }
         }
+        courses.sort(Comparator.comparing(Course::getCourseName));
+        return courses;
+    }
+
+    /**
+     * Find courses that are prerequisites for many other courses in a loaded graph snapshot,
+     * most required first
+     */
+    public List<Course> findPopularPrerequisites(PrerequisiteGraph graph, int minCount) {
+        List<Integer> popular = new ArrayList<>();
+        for (int v = 0; v < graph.size(); v++) {
+            if (graph.dependentCount(v) >= minCount) {
+                popular.add(v);
+            }
+        }
+        popular.sort(Comparator.<Integer>comparingInt(v -> -graph.dependentCount(v))
+                .thenComparing(graph::name));
         
-        return prerequisiteCounts.entrySet().stream()
-                .filter(entry -> entry.getValue() >= minCount)
-                .map(entry -> {
-                    try {
-                        return courseDAO.findByName(entry.getKey());
-                    } catch (SQLException e) {
-                        logger.error("Error finding course: {}", entry.getKey(), e);
-                        return Optional.<Course>empty();
-                    }
-                })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        return popular.stream().map(graph::toCourse).collect(Collectors.toList());
     }
 
     /**
-     * Generate prerequisite report
+     * Generate prerequisite report. The report is reused until the catalog version changes,
+     * so repeated calls cost one small query against an unchanged catalog.
      */
     public String generatePrerequisiteReport() throws SQLException {
+        CatalogVersion version = courseDAO.getCatalogVersion();
+        CachedReport cached = cachedReport;
+        if (cached != null && cached.version.equals(version)) {
+            logger.debug("Reusing prerequisite report for {}", version);
+            return cached.report;
+        }
+        
+        // Tagged with the version read before loading, so concurrent changes only cause a rebuild
+        String report = generatePrerequisiteReport(loadGraph());
+        cachedReport = new CachedReport(version, report);
+        return report;
+    }
+
+    /**
+     * Write the prerequisite report while streaming it from the database, without building
+     * it in memory. The writer is flushed but not closed.
+     */
+    public void writePrerequisiteReport(Writer out, PrerequisiteReportWriter.Format format) 
+            throws SQLException, IOException {
+        new PrerequisiteReportWriter(prerequisiteDAO).write(out, format);
+    }
+
+    /**
+     * Generate prerequisite report from a loaded graph snapshot
+     */
+    public String generatePrerequisiteReport(PrerequisiteGraph graph) {
         StringBuilder report = new StringBuilder();
         
         report.append("=== PREREQUISITE RELATIONSHIP REPORT ===\n\n");
         
-        // Get all relationships
-        List<Prerequisite> allPrerequisites = getAllPrerequisiteRelationships();
-        
-        if (allPrerequisites.isEmpty()) {
+        if (graph.edgeCount() == 0) {
             report.append("No prerequisite relationships found.\n");
             return report.toString();
         }
         
-        // Group by course
-        Map<String, List<Prerequisite>> prerequisitesByCourse = allPrerequisites.stream()
-                .collect(Collectors.groupingBy(p -> p.getCourse().getCourseName()));
-        
         // Report by course
         report.append("PREREQUISITES BY COURSE:\n");
         report.append("=======================\n");
         
-        for (Map.Entry<String, List<Prerequisite>> entry : prerequisitesByCourse.entrySet()) {
-            String courseName = entry.getKey();
-            List<Prerequisite> prerequisites = entry.getValue();
+        int coursesWithPrerequisites = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            int count = graph.prerequisiteCount(v);
+            if (count == 0) {
+                continue;
+            }
+            coursesWithPrerequisites++;
             
-            report.append(String.format("\n%s:\n", courseName));
-            for (Prerequisite prereq : prerequisites) {
+            report.append(String.format("\n%s:\n", graph.name(v)));
+            for (int i = 0; i < count; i++) {
+                int prereq = graph.prerequisite(v, i);
                 report.append(String.format("  - %s (%d credits, %s)\n", 
-                    prereq.getPrerequisiteCourse().getCourseName(),
-                    prereq.getPrerequisiteCourse().getCreditHours(),
-                    prereq.getPrerequisiteCourse().getMajorType().getValue()));
+                    graph.name(prereq), graph.creditHours(prereq), graph.majorType(prereq).getValue()));
             }
         }
         
@@ -182,39 +364,51 @@ public class PrerequisiteAnalysisService {
         report.append("\n\nCOURSES BY PREREQUISITE:\n");
         report.append("=======================\n");
         
-        Map<String, List<Prerequisite>> coursesByPrerequisite = allPrerequisites.stream()
-                .collect(Collectors.groupingBy(p -> p.getPrerequisiteCourse().getCourseName()));
-        
-        for (Map.Entry<String, List<Prerequisite>> entry : coursesByPrerequisite.entrySet()) {
-            String prereqName = entry.getKey();
-            List<Prerequisite> courses = entry.getValue();
+        int coursesThatArePrerequisites = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            int count = graph.dependentCount(v);
+            if (count == 0) {
+                continue;
+            }
+            coursesThatArePrerequisites++;
             
-            report.append(String.format("\n%s is a prerequisite for:\n", prereqName));
-            for (Prerequisite prereq : courses) {
+            report.append(String.format("\n%s is a prerequisite for:\n", graph.name(v)));
+            for (int i = 0; i < count; i++) {
+                int course = graph.dependent(v, i);
                 report.append(String.format("  - %s (%d credits, %s)\n", 
-                    prereq.getCourse().getCourseName(),
-                    prereq.getCourse().getCreditHours(),
-                    prereq.getCourse().getMajorType().getValue()));
+                    graph.name(course), graph.creditHours(course), graph.majorType(course).getValue()));
             }
         }
         
         // Statistics
         report.append("\n\nSTATISTICS:\n");
         report.append("===========\n");
-        report.append(String.format("Total prerequisite relationships: %d\n", allPrerequisites.size()));
-        report.append(String.format("Courses with prerequisites: %d\n", prerequisitesByCourse.size()));
-        report.append(String.format("Courses that are prerequisites: %d\n", coursesByPrerequisite.size()));
+        report.append(String.format("Total prerequisite relationships: %d\n", graph.edgeCount()));
+        report.append(String.format("Courses with prerequisites: %d\n", coursesWithPrerequisites));
+        report.append(String.format("Courses that are prerequisites: %d\n", coursesThatArePrerequisites));
         
         // Popular prerequisites
-        List<Course> popularPrereqs = findPopularPrerequisites(2);
+        List<Course> popularPrereqs = findPopularPrerequisites(graph, 2);
         if (!popularPrereqs.isEmpty()) {
             report.append("\nPOPULAR PREREQUISITES (required by 2+ courses):\n");
             for (Course course : popularPrereqs) {
-                int count = coursesByPrerequisite.get(course.getCourseName()).size();
+                int count = graph.dependentCount(graph.indexOf(course.getCourseName()));
                 report.append(String.format("  - %s (required by %d courses)\n", course.getCourseName(), count));
             }
         }
         
+        // Depth and critical paths
+        CourseDepthIndex depthIndex = CourseDepthIndex.build(graph);
+        int[] deepest = depthIndex.deepestCourses(10);
+        if (deepest.length > 0) {
+            report.append("\nCRITICAL PATHS (deepest courses):\n");
+            for (int course : deepest) {
+                report.append(String.format("  - %s: depth %d, %d credits on critical path (%s)\n",
+                    graph.name(course), depthIndex.depth(course), depthIndex.criticalPathCredits(course),
+                    String.join(" -> ", depthIndex.criticalPath(graph.name(course)))));
+            }
+        }
+        
         return report.toString();
     }
 
@@ -222,56 +416,56 @@ public class PrerequisiteAnalysisService {
      * Check for circular dependencies
      */
     public List<String> findCircularDependencies() throws SQLException {
+        return findCircularDependencies(loadGraph());
+    }
+
+    /**
+     * Check for circular dependencies in a loaded graph snapshot, reporting every cycle group
+     */
+    public List<String> findCircularDependencies(PrerequisiteGraph graph) {
         List<String> circularDeps = new ArrayList<>();
-        List<Prerequisite> allPrerequisites = getAllPrerequisiteRelationships();
-        
-        // Build adjacency list
-        Map<String, List<String>> graph = new HashMap<>();
-        for (Prerequisite prereq : allPrerequisites) {
-            String course = prereq.getCourse().getCourseName();
-            String prereqCourse = prereq.getPrerequisiteCourse().getCourseName();
-            
-            graph.computeIfAbsent(course, k -> new ArrayList<>()).add(prereqCourse);
-        }
-        
-        // Check for cycles using DFS
-        Set<String> visited = new HashSet<>();
-        Set<String> recursionStack = new HashSet<>();
-        
-        for (String course : graph.keySet()) {
-            if (!visited.contains(course)) {
-                if (hasCycle(course, graph, visited, recursionStack, circularDeps)) {
-                    // Cycle found
-                }
-            }
+        for (List<String> group : findCycleGroups(graph)) {
+            circularDeps.add("Circular dependency detected among: " + String.join(", ", group));
         }
-        
         return circularDeps;
     }
 
     /**
-     * DFS helper to detect cycles
+     * Find every group of courses that depend on each other in a cycle
      */
-    private boolean hasCycle(String course, Map<String, List<String>> graph, 
-                           Set<String> visited, Set<String> recursionStack, List<String> circularDeps) {
-        visited.add(course);
-        recursionStack.add(course);
+    public List<List<String>> findCycleGroups() throws SQLException {
+        return findCycleGroups(loadGraph());
+    }
+
+    /**
+     * Find every group of courses that depend on each other in a cycle, in a loaded graph snapshot
+     */
+    public List<List<String>> findCycleGroups(PrerequisiteGraph graph) {
+        long startTime = System.nanoTime();
+        StronglyConnectedComponents components = StronglyConnectedComponents.compute(graph);
         
-        List<String> prerequisites = graph.get(course);
-        if (prerequisites != null) {
-            for (String prereq : prerequisites) {
-                if (!visited.contains(prereq)) {
-                    if (hasCycle(prereq, graph, visited, recursionStack, circularDeps)) {
-                        return true;
-                    }
-                } else if (recursionStack.contains(prereq)) {
-                    circularDeps.add(String.format("Circular dependency detected: %s -> %s", course, prereq));
-                    return true;
-                }
+        List<List<String>> groups = new ArrayList<>();
+        for (int[] members : components.cycleGroups()) {
+            List<String> group = new ArrayList<>(members.length);
+            for (int course : members) {
+                group.add(graph.name(course));
             }
+            Collections.sort(group);
+            groups.add(group);
         }
         
-        recursionStack.remove(course);
-        return false;
+        logger.debug("Cycle check over {} courses and {} edges found {} groups in {} ms",
+                    graph.size(), graph.edgeCount(), groups.size(), (System.nanoTime() - startTime) / 1_000_000);
+        return groups;
+    }
+
+    private static class CachedReport {
+        final CatalogVersion version;
+        final String report;
+
+        CachedReport(CatalogVersion version, String report) {
+            this.version = version;
+            this.report = report;
+        }
     }
 }
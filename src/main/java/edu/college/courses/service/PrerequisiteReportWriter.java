@@ -0,0 +1,450 @@
+package edu.college.courses.service;
+
+import edu.college.courses.config.DatabaseConfig;
+import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.model.Course;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the prerequisite report incrementally while the prerequisite rows are streamed from
+ * the database, so memory stays flat however large the catalog is and output starts with the
+ * first row.
+ *
+ * The report takes two scans in one REPEATABLE READ transaction, so both see the same catalog:
+ * one grouped by course for the prerequisites of each course, and one grouped by prerequisite
+ * for the courses requiring it, which also yields the statistics. The scans follow indexes on
+ * the prerequisites table, so the first rows go out before the server has read the whole join;
+ * groups and rows therefore come in course ID order rather than by name. Only the popular
+ * prerequisites are held until the end, to be listed by count. CSV output is one row
+ * per prerequisite relationship and needs only the first scan.
+ */
+public class PrerequisiteReportWriter {
+    private static final Logger logger = LoggerFactory.getLogger(PrerequisiteReportWriter.class);
+
+    /** Courses required by at least this many courses are listed as popular prerequisites */
+    public static final int POPULAR_MIN_COUNT = 2;
+
+    public enum Format {
+        TEXT, JSON, CSV
+    }
+
+    private final PrerequisiteDAO prerequisiteDAO;
+
+    public PrerequisiteReportWriter() {
+        this(new PrerequisiteDAO());
+    }
+
+    public PrerequisiteReportWriter(PrerequisiteDAO prerequisiteDAO) {
+        this.prerequisiteDAO = prerequisiteDAO;
+    }
+
+    /**
+     * Write the report as UTF-8. The stream is flushed but not closed.
+     */
+    public void write(OutputStream out, Format format) throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(writer, format);
+    }
+
+    /**
+     * Write the report. The writer is flushed but not closed.
+     */
+    public void write(Writer out, Format format) throws SQLException, IOException {
+        long startTime = System.nanoTime();
+        Sink sink = createSink(format, out);
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try {
+                write(conn, sink);
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                conn.setTransactionIsolation(isolation);
+            }
+        } catch (UncheckedIOException e) {
+            // Thrown from inside a row callback
+            throw e.getCause();
+        }
+        out.flush();
+
+        logger.debug("Wrote {} prerequisite report in {} ms", format, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private void write(Connection conn, Sink sink) throws SQLException, IOException {
+        sink.begin();
+
+        Grouping byCourse = new Grouping(sink, true);
+        prerequisiteDAO.forEachPrerequisiteByCourse(conn, byCourse::row);
+        byCourse.finish();
+
+        if (byCourse.rows == 0) {
+            sink.empty();
+        } else if (sink.wantsDependents()) {
+            Grouping byPrerequisite = new Grouping(sink, false);
+            prerequisiteDAO.forEachPrerequisiteByPrerequisite(conn, byPrerequisite::row);
+            byPrerequisite.finish();
+
+            byPrerequisite.popular.sort((a, b) -> a.count != b.count
+                    ? Integer.compare(b.count, a.count) : a.name.compareTo(b.name));
+            sink.statistics(byCourse.rows, byCourse.groups, byPrerequisite.groups, byPrerequisite.popular);
+        }
+
+        sink.end();
+    }
+
+    private static Sink createSink(Format format, Writer out) {
+        switch (format) {
+            case JSON:
+                return new JsonSink(out);
+            case CSV:
+                return new CsvSink(out);
+            default:
+                return new TextSink(out);
+        }
+    }
+
+    /**
+     * Turns an ordered row scan into group events and counts groups and rows along the way
+     */
+    private static class Grouping {
+        final Sink sink;
+        final boolean byCourse;
+        final List<Popular> popular = new ArrayList<>();
+        String current;
+        int currentCount;
+        int groups;
+        int rows;
+
+        Grouping(Sink sink, boolean byCourse) {
+            this.sink = sink;
+            this.byCourse = byCourse;
+        }
+
+        void row(String name, String relatedName, int relatedCreditHours, Course.MajorType relatedMajorType) {
+            try {
+                if (!name.equals(current)) {
+                    closeGroup();
+                    if (groups == 0) {
+                        sink.beginSection(byCourse);
+                    }
+                    current = name;
+                    currentCount = 0;
+                    groups++;
+                    sink.beginGroup(byCourse, name);
+                }
+                sink.row(byCourse, name, relatedName, relatedCreditHours, relatedMajorType);
+                currentCount++;
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws IOException {
+            closeGroup();
+            if (groups > 0) {
+                sink.endSection(byCourse);
+            }
+        }
+
+        private void closeGroup() throws IOException {
+            if (current == null) {
+                return;
+            }
+            sink.endGroup(byCourse);
+            if (!byCourse && currentCount >= POPULAR_MIN_COUNT) {
+                popular.add(new Popular(current, currentCount));
+            }
+        }
+    }
+
+    private static class Popular {
+        final String name;
+        final int count;
+
+        Popular(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Output format. Group events arrive in scan order; {@code byCourse} tells which scan
+     * they belong to.
+     */
+    private abstract static class Sink {
+        final Writer out;
+
+        Sink(Writer out) {
+            this.out = out;
+        }
+
+        boolean wantsDependents() {
+            return true;
+        }
+
+        abstract void begin() throws IOException;
+
+        void beginSection(boolean byCourse) throws IOException {
+        }
+
+        abstract void beginGroup(boolean byCourse, String name) throws IOException;
+
+        abstract void row(boolean byCourse, String name, String relatedName, int creditHours,
+                          Course.MajorType majorType) throws IOException;
+
+        void endGroup(boolean byCourse) throws IOException {
+        }
+
+        void endSection(boolean byCourse) throws IOException {
+            out.flush();
+        }
+
+        void empty() throws IOException {
+        }
+
+        void statistics(int relationships, int coursesWithPrerequisites, int coursesThatArePrerequisites,
+                        List<Popular> popular) throws IOException {
+        }
+
+        abstract void end() throws IOException;
+    }
+
+    /**
+     * Same layout as the in-memory report, without the critical paths, which need the whole graph
+     */
+    private static class TextSink extends Sink {
+        TextSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write("=== PREREQUISITE RELATIONSHIP REPORT ===\n\n");
+        }
+
+        @Override
+        void beginSection(boolean byCourse) throws IOException {
+            out.write(byCourse ? "PREREQUISITES BY COURSE:\n" : "\n\nCOURSES BY PREREQUISITE:\n");
+            out.write("=======================\n");
+        }
+
+        @Override
+        void beginGroup(boolean byCourse, String name) throws IOException {
+            out.write(byCourse ? "\n" + name + ":\n" : "\n" + name + " is a prerequisite for:\n");
+        }
+
+        @Override
+        void row(boolean byCourse, String name, String relatedName, int creditHours,
+                 Course.MajorType majorType) throws IOException {
+            out.write("  - " + relatedName + " (" + creditHours + " credits, " + majorType.getValue() + ")\n");
+        }
+
+        @Override
+        void empty() throws IOException {
+            out.write("No prerequisite relationships found.\n");
+        }
+
+        @Override
+        void statistics(int relationships, int coursesWithPrerequisites, int coursesThatArePrerequisites,
+                        List<Popular> popular) throws IOException {
+            out.write("\n\nSTATISTICS:\n");
+            out.write("===========\n");
+            out.write("Total prerequisite relationships: " + relationships + "\n");
+            out.write("Courses with prerequisites: " + coursesWithPrerequisites + "\n");
+            out.write("Courses that are prerequisites: " + coursesThatArePrerequisites + "\n");
+            if (!popular.isEmpty()) {
+                out.write("\nPOPULAR PREREQUISITES (required by " + POPULAR_MIN_COUNT + "+ courses):\n");
+                for (Popular course : popular) {
+                    out.write("  - " + course.name + " (required by " + course.count + " courses)\n");
+                }
+            }
+        }
+
+        @Override
+        void end() {
+        }
+    }
+
+    private static class JsonSink extends Sink {
+        private boolean firstGroup;
+        private boolean firstRow;
+
+        JsonSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write('{');
+        }
+
+        @Override
+        void beginSection(boolean byCourse) throws IOException {
+            out.write(byCourse ? "\n\"prerequisitesByCourse\":[\n" : ",\n\"coursesByPrerequisite\":[\n");
+            firstGroup = true;
+        }
+
+        @Override
+        void beginGroup(boolean byCourse, String name) throws IOException {
+            if (!firstGroup) {
+                out.write(",\n");
+            }
+            firstGroup = false;
+            out.write(byCourse ? "{\"course\":" : "{\"prerequisite\":");
+            writeString(name);
+            out.write(byCourse ? ",\"prerequisites\":[" : ",\"courses\":[");
+            firstRow = true;
+        }
+
+        @Override
+        void row(boolean byCourse, String name, String relatedName, int creditHours,
+                 Course.MajorType majorType) throws IOException {
+            if (!firstRow) {
+                out.write(',');
+            }
+            firstRow = false;
+            out.write("{\"course\":");
+            writeString(relatedName);
+            out.write(",\"creditHours\":" + creditHours + ",\"majorType\":");
+            writeString(majorType.getValue());
+            out.write('}');
+        }
+
+        @Override
+        void endGroup(boolean byCourse) throws IOException {
+            out.write("]}");
+        }
+
+        @Override
+        void endSection(boolean byCourse) throws IOException {
+            out.write(']');
+            super.endSection(byCourse);
+        }
+
+        @Override
+        void empty() throws IOException {
+            out.write("\n\"prerequisitesByCourse\":[],\n\"coursesByPrerequisite\":[]");
+            statistics(0, 0, 0, new ArrayList<>());
+        }
+
+        @Override
+        void statistics(int relationships, int coursesWithPrerequisites, int coursesThatArePrerequisites,
+                        List<Popular> popular) throws IOException {
+            out.write(",\n\"statistics\":{\"totalRelationships\":" + relationships
+                      + ",\"coursesWithPrerequisites\":" + coursesWithPrerequisites
+                      + ",\"coursesThatArePrerequisites\":" + coursesThatArePrerequisites + "}");
+            out.write(",\n\"popularPrerequisites\":[");
+            for (int i = 0; i < popular.size(); i++) {
+                out.write(i == 0 ? "{\"course\":" : ",{\"course\":");
+                writeString(popular.get(i).name);
+                out.write(",\"requiredBy\":" + popular.get(i).count + "}");
+            }
+            out.write(']');
+        }
+
+        @Override
+        void end() throws IOException {
+            out.write("\n}\n");
+        }
+
+        private void writeString(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.write("\\\"");
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    case '\n':
+                        out.write("\\n");
+                        break;
+                    case '\r':
+                        out.write("\\r");
+                        break;
+                    case '\t':
+                        out.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+
+    private static class CsvSink extends Sink {
+        CsvSink(Writer out) {
+            super(out);
+        }
+
+        @Override
+        boolean wantsDependents() {
+            return false;
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write("course,prerequisite,prerequisite_credit_hours,prerequisite_major_type\n");
+        }
+
+        @Override
+        void beginGroup(boolean byCourse, String name) {
+        }
+
+        @Override
+        void row(boolean byCourse, String name, String relatedName, int creditHours,
+                 Course.MajorType majorType) throws IOException {
+            writeField(name);
+            out.write(',');
+            writeField(relatedName);
+            out.write(',');
+            out.write(Integer.toString(creditHours));
+            out.write(',');
+            out.write(majorType.getValue());
+            out.write('\n');
+        }
+
+        @Override
+        void end() {
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
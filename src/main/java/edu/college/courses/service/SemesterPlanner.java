@@ -0,0 +1,365 @@
+package edu.college.courses.service;
+
+import edu.college.courses.graph.CourseDepthIndex;
+import edu.college.courses.graph.PrerequisiteGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Plans a term-by-term schedule that reaches a set of target courses.
+ *
+ * Only the courses the targets actually need are considered: the targets plus, recursively,
+ * one member of every requirement clause the student has not met yet. A clause is met by any
+ * completed member; when none is, an already needed member is reused, otherwise the shallowest
+ * one is taken. Optional prerequisites are never scheduled. Those courses are
+ * list-scheduled over their topological order, always taking the course with the longest
+ * remaining chain above it first (critical path), and packing each term up to the credit
+ * cap. A course heavier than the cap is taken on its own.
+ */
+public class SemesterPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(SemesterPlanner.class);
+    
+    // How many ready courses a term may pass over while looking for one that still fits
+    private static final int MAX_DEFERRED_PER_TERM = 64;
+
+    private final PrerequisiteGraph graph;
+    private final CourseDepthIndex depthIndex;
+
+    public SemesterPlanner(PrerequisiteGraph graph) {
+        this(CourseDepthIndex.build(graph));
+    }
+
+    public SemesterPlanner(CourseDepthIndex depthIndex) {
+        this.graph = depthIndex.getGraph();
+        this.depthIndex = depthIndex;
+    }
+
+    /**
+     * Plan the terms needed to complete the target courses
+     */
+    public SemesterPlan plan(Collection<String> targetCourses, Collection<String> completedCourses,
+                             int maxCreditsPerTerm) {
+        if (maxCreditsPerTerm <= 0) {
+            throw new IllegalArgumentException("Credit cap must be positive: " + maxCreditsPerTerm);
+        }
+        long startTime = System.nanoTime();
+        int n = graph.size();
+        List<String> unknownCourses = new ArrayList<>();
+
+        boolean[] completed = new boolean[n];
+        for (String name : completedCourses) {
+            int course = graph.indexOf(name);
+            if (course >= 0) {
+                completed[course] = true;
+            }
+        }
+
+        // Collect the needed subgraph: targets and one member of each of their outstanding
+        // requirement clauses, recursively. A clause is an alternative group or a standalone
+        // prerequisite; optional prerequisites are never needed.
+        boolean[] needed = new boolean[n];
+        int[] neededCourses = new int[n];
+        int neededCount = 0;
+        for (String name : targetCourses) {
+            int course = graph.indexOf(name);
+            if (course < 0) {
+                unknownCourses.add(name);
+            } else if (!completed[course] && !needed[course]) {
+                needed[course] = true;
+                neededCourses[neededCount++] = course;
+            }
+        }
+        // Clause c belongs to clauseOwners[c]; its members are clauseMembers[clauseOffsets[c] .. clauseOffsets[c + 1]]
+        int[] clauseOwners = new int[16];
+        int[] clauseOffsets = new int[17];
+        int[] clauseMembers = new int[16];
+        int clauseCount = 0;
+        int memberCount = 0;
+        long[] edges = new long[16];
+        for (int i = 0; i < neededCount; i++) {
+            int course = neededCourses[i];
+            int degree = graph.prerequisiteCount(course);
+            if (edges.length < degree) {
+                edges = new long[degree];
+            }
+            int count = 0;
+            for (int p = 0; p < degree; p++) {
+                int group = graph.prerequisiteGroup(course, p);
+                if (group != PrerequisiteGraph.OPTIONAL) {
+                    edges[count++] = ((long) group << 32) | graph.prerequisite(course, p);
+                }
+            }
+            // Sorting by group makes each alternative group contiguous
+            Arrays.sort(edges, 0, count);
+
+            for (int start = 0, end; start < count; start = end) {
+                int group = (int) (edges[start] >>> 32);
+                end = start + 1;
+                if (group != PrerequisiteGraph.STANDALONE) {
+                    while (end < count && (int) (edges[end] >>> 32) == group) {
+                        end++;
+                    }
+                }
+                int chosen = -1;
+                boolean met = false;
+                for (int e = start; e < end && !met; e++) {
+                    int member = (int) edges[e];
+                    if (completed[member]) {
+                        met = true;
+                    } else if (chosen < 0 || (!needed[chosen] && (needed[member] || isEasier(member, chosen)))) {
+                        chosen = member;
+                    }
+                }
+                if (met) {
+                    continue;
+                }
+
+                if (clauseCount + 1 >= clauseOwners.length) {
+                    clauseOwners = Arrays.copyOf(clauseOwners, clauseOwners.length * 2);
+                    clauseOffsets = Arrays.copyOf(clauseOffsets, clauseOwners.length + 1);
+                }
+                if (memberCount + end - start > clauseMembers.length) {
+                    clauseMembers = Arrays.copyOf(clauseMembers, Math.max(clauseMembers.length * 2, memberCount + end - start));
+                }
+                clauseOwners[clauseCount] = course;
+                clauseOffsets[clauseCount] = memberCount;
+                for (int e = start; e < end; e++) {
+                    clauseMembers[memberCount++] = (int) edges[e];
+                }
+                clauseCount++;
+                if (!needed[chosen]) {
+                    needed[chosen] = true;
+                    neededCourses[neededCount++] = chosen;
+                }
+            }
+        }
+        clauseOffsets[clauseCount] = memberCount;
+
+        // A needed course waits on each of its outstanding clauses; taking any needed member
+        // meets the clause. memberClauses lists, per course, the clauses it can meet.
+        int[] remaining = new int[n];
+        int[] memberClauseOffsets = new int[n + 1];
+        for (int c = 0; c < clauseCount; c++) {
+            remaining[clauseOwners[c]]++;
+            for (int m = clauseOffsets[c]; m < clauseOffsets[c + 1]; m++) {
+                if (needed[clauseMembers[m]]) {
+                    memberClauseOffsets[clauseMembers[m] + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            memberClauseOffsets[v + 1] += memberClauseOffsets[v];
+        }
+        int[] memberClauses = new int[memberClauseOffsets[n]];
+        int[] fill = Arrays.copyOf(memberClauseOffsets, n);
+        for (int c = 0; c < clauseCount; c++) {
+            for (int m = clauseOffsets[c]; m < clauseOffsets[c + 1]; m++) {
+                if (needed[clauseMembers[m]]) {
+                    memberClauses[fill[clauseMembers[m]]++] = c;
+                }
+            }
+        }
+
+        // Topological order of the needed subgraph
+        int[] order = new int[neededCount];
+        int orderCount = 0;
+        for (int i = 0; i < neededCount; i++) {
+            if (remaining[neededCourses[i]] == 0) {
+                order[orderCount++] = neededCourses[i];
+            }
+        }
+        int[] unlock = remaining.clone();
+        boolean[] clauseMet = new boolean[clauseCount];
+        for (int head = 0; head < orderCount; head++) {
+            int course = order[head];
+            for (int k = memberClauseOffsets[course]; k < memberClauseOffsets[course + 1]; k++) {
+                int c = memberClauses[k];
+                if (!clauseMet[c]) {
+                    clauseMet[c] = true;
+                    if (--unlock[clauseOwners[c]] == 0) {
+                        order[orderCount++] = clauseOwners[c];
+                    }
+                }
+            }
+        }
+
+        // Height: length of the longest chain of needed courses that builds on a course
+        int[] height = new int[n];
+        for (int i = orderCount - 1; i >= 0; i--) {
+            int course = order[i];
+            int best = 0;
+            for (int k = memberClauseOffsets[course]; k < memberClauseOffsets[course + 1]; k++) {
+                best = Math.max(best, height[clauseOwners[memberClauses[k]]]);
+            }
+            height[course] = best + 1;
+        }
+
+        PriorityQueue<Integer> ready = new PriorityQueue<>((a, b) -> {
+            if (height[a] != height[b]) {
+                return Integer.compare(height[b], height[a]);
+            }
+            if (graph.creditHours(a) != graph.creditHours(b)) {
+                return Integer.compare(graph.creditHours(b), graph.creditHours(a));
+            }
+            return graph.name(a).compareTo(graph.name(b));
+        });
+        for (int i = 0; i < orderCount; i++) {
+            if (remaining[order[i]] == 0) {
+                ready.add(order[i]);
+            }
+        }
+
+        Arrays.fill(clauseMet, false);
+        List<Term> terms = new ArrayList<>();
+        List<Integer> deferred = new ArrayList<>();
+        List<Integer> taken = new ArrayList<>();
+        int scheduled = 0;
+        while (!ready.isEmpty()) {
+            int credits = 0;
+            List<String> termCourses = new ArrayList<>();
+            while (!ready.isEmpty() && credits < maxCreditsPerTerm && deferred.size() < MAX_DEFERRED_PER_TERM) {
+                int course = ready.poll();
+                int courseCredits = graph.creditHours(course);
+                if (termCourses.isEmpty() || credits + courseCredits <= maxCreditsPerTerm) {
+                    termCourses.add(graph.name(course));
+                    credits += courseCredits;
+                    taken.add(course);
+                } else {
+                    deferred.add(course);
+                }
+            }
+            terms.add(new Term(terms.size() + 1, termCourses, credits));
+            scheduled += taken.size();
+
+            // Courses become available the term after their last prerequisite
+            ready.addAll(deferred);
+            deferred.clear();
+            for (int course : taken) {
+                for (int k = memberClauseOffsets[course]; k < memberClauseOffsets[course + 1]; k++) {
+                    int c = memberClauses[k];
+                    if (!clauseMet[c]) {
+                        clauseMet[c] = true;
+                        if (--remaining[clauseOwners[c]] == 0) {
+                            ready.add(clauseOwners[c]);
+                        }
+                    }
+                }
+            }
+            taken.clear();
+        }
+
+        // Anything left waits on a circular dependency
+        List<String> unschedulable = new ArrayList<>();
+        if (scheduled < neededCount) {
+            for (int i = 0; i < neededCount; i++) {
+                if (remaining[neededCourses[i]] > 0) {
+                    unschedulable.add(graph.name(neededCourses[i]));
+                }
+            }
+            Collections.sort(unschedulable);
+        }
+
+        logger.debug("Planned {} courses over {} terms in {} us", scheduled, terms.size(),
+                    (System.nanoTime() - startTime) / 1_000);
+        return new SemesterPlan(terms, unschedulable, unknownCourses);
+    }
+
+    /**
+     * True if a course is a cheaper way to meet a clause than another: fewer terms of
+     * prerequisites, then fewer credits. Courses behind a cycle come last.
+     */
+    private boolean isEasier(int course, int other) {
+        int depth = depthIndex.depth(course);
+        int otherDepth = depthIndex.depth(other);
+        if (depth != otherDepth) {
+            return otherDepth == CourseDepthIndex.UNREACHABLE || (depth != CourseDepthIndex.UNREACHABLE && depth < otherDepth);
+        }
+        return graph.creditHours(course) < graph.creditHours(other);
+    }
+
+    /**
+     * One term of a plan
+     */
+    public static class Term {
+        private final int number;
+        private final List<String> courses;
+        private final int creditHours;
+
+        public Term(int number, List<String> courses, int creditHours) {
+            this.number = number;
+            this.courses = courses;
+            this.creditHours = creditHours;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public List<String> getCourses() {
+            return courses;
+        }
+
+        public int getCreditHours() {
+            return creditHours;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Term %d (%d credits): %s", number, creditHours, courses);
+        }
+    }
+
+    /**
+     * Result of a planning request
+     */
+    public static class SemesterPlan {
+        private final List<Term> terms;
+        private final List<String> unschedulableCourses;
+        private final List<String> unknownCourses;
+
+        public SemesterPlan(List<Term> terms, List<String> unschedulableCourses, List<String> unknownCourses) {
+            this.terms = terms;
+            this.unschedulableCourses = unschedulableCourses;
+            this.unknownCourses = unknownCourses;
+        }
+
+        public List<Term> getTerms() {
+            return terms;
+        }
+
+        public int getTermCount() {
+            return terms.size();
+        }
+
+        /**
+         * Courses that cannot be scheduled because they sit on or behind a circular dependency
+         */
+        public List<String> getUnschedulableCourses() {
+            return unschedulableCourses;
+        }
+
+        /**
+         * Requested target courses that are not in the catalog
+         */
+        public List<String> getUnknownCourses() {
+            return unknownCourses;
+        }
+
+        public boolean isComplete() {
+            return unschedulableCourses.isEmpty() && unknownCourses.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SemesterPlan{terms=%d, unschedulable=%d, unknown=%d}",
+                               terms.size(), unschedulableCourses.size(), unknownCourses.size());
+        }
+    }
+}
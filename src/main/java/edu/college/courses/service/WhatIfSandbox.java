@@ -0,0 +1,834 @@
+package edu.college.courses.service;
+
+import edu.college.courses.config.DatabaseConfig;
+import edu.college.courses.dao.CourseDAO;
+import edu.college.courses.dao.PrerequisiteDAO;
+import edu.college.courses.graph.IncrementalCycleDetector;
+import edu.college.courses.graph.PrerequisiteGraph;
+import edu.college.courses.graph.ReachabilityIndex;
+import edu.college.courses.graph.StronglyConnectedComponents;
+import edu.college.courses.model.Course;
+import edu.college.courses.model.Prerequisite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Proposed course and prerequisite edits layered over a loaded graph snapshot, for
+ * "what breaks if" questions that must not touch the database.
+ *
+ * The snapshot itself is never copied or modified; the sandbox only records the edits and
+ * reads each course's prerequisites as the snapshot's CSR row with the edits applied.
+ * {@link #analyze} walks only what the edits reach: the courses downstream of changed ones and,
+ * for cycles, the snapshot cycle groups the edits touch plus the courses between the ends of
+ * added edges. Tarjan over the whole snapshot runs once, on the first analysis.
+ * {@link #isAncestor}, {@link #allAncestors} and {@link #allDescendants} search the same overlay
+ * from one course. A full merged graph is built only when asked for with {@link #getGraph} and
+ * kept until the next edit; {@link #buildReachabilityIndex} rebuilds the whole closure from it.
+ * Courses added in the sandbox get negative placeholder IDs until {@link #commit} writes
+ * the whole delta in one transaction.
+ */
+public class WhatIfSandbox {
+    private static final Logger logger = LoggerFactory.getLogger(WhatIfSandbox.class);
+
+    private final PrerequisiteGraph base;
+
+    // Courses are identified by database ID, or by a negative placeholder ID if added here
+    private final Map<String, Course> addedCourses = new LinkedHashMap<>();
+    private final Map<String, Integer> addedCourseIds = new HashMap<>();
+    private final Set<Integer> removedCourseIds = new LinkedHashSet<>();
+    private final Set<Long> addedEdges = new LinkedHashSet<>();
+    private final Set<Long> removedEdges = new LinkedHashSet<>();
+    private int nextPlaceholderId = -1;
+    private boolean committed;
+
+    // Derived from the edits; cleared whenever they change
+    private PrerequisiteGraph merged;
+    private Map<Integer, List<Integer>> addedPrerequisites;
+    private Map<Integer, List<Integer>> addedDependents;
+    // Computed once per snapshot
+    private StronglyConnectedComponents baseComponents;
+
+    public WhatIfSandbox(PrerequisiteGraph base) {
+        this.base = base;
+    }
+
+    public PrerequisiteGraph getBaseGraph() {
+        return base;
+    }
+
+    /**
+     * Propose a new course
+     */
+    public WhatIfSandbox addCourse(Course course) {
+        checkOpen();
+        String name = course.getCourseName();
+        if (resolve(name) != null) {
+            throw new IllegalArgumentException("Course already exists: " + name);
+        }
+        addedCourses.put(name, course);
+        addedCourseIds.put(name, nextPlaceholderId--);
+        changed();
+        return this;
+    }
+
+    /**
+     * Propose dropping a course together with every prerequisite relationship it is part of
+     */
+    public WhatIfSandbox removeCourse(String courseName) {
+        checkOpen();
+        int courseId = require(courseName);
+        addedEdges.removeIf(key -> courseOf(key) == courseId || prerequisiteOf(key) == courseId);
+        if (addedCourses.remove(courseName) != null) {
+            addedCourseIds.remove(courseName);
+        } else {
+            removedCourseIds.add(courseId);
+        }
+        changed();
+        return this;
+    }
+
+    /**
+     * Propose a required prerequisite relationship
+     */
+    public WhatIfSandbox addPrerequisite(String courseName, String prerequisiteName) {
+        checkOpen();
+        long key = edgeKey(require(courseName), require(prerequisiteName));
+        if (!removedEdges.remove(key) && !isBaseEdge(key)) {
+            addedEdges.add(key);
+        }
+        changed();
+        return this;
+    }
+
+    /**
+     * Propose dropping a prerequisite relationship
+     */
+    public WhatIfSandbox removePrerequisite(String courseName, String prerequisiteName) {
+        checkOpen();
+        long key = edgeKey(require(courseName), require(prerequisiteName));
+        if (!addedEdges.remove(key) && isBaseEdge(key)) {
+            removedEdges.add(key);
+        }
+        changed();
+        return this;
+    }
+
+    public boolean hasChanges() {
+        return !addedCourses.isEmpty() || !removedCourseIds.isEmpty()
+               || !addedEdges.isEmpty() || !removedEdges.isEmpty();
+    }
+
+    /**
+     * The snapshot with every proposed edit applied
+     */
+    public PrerequisiteGraph getGraph() {
+        if (merged == null) {
+            merged = merge();
+        }
+        return merged;
+    }
+
+    /**
+     * Transitive closure of the edited graph. This merges the whole graph and rebuilds the
+     * closure over every course on each call, so it only pays off for many questions about one
+     * set of edits; single questions are cheaper with {@link #isAncestor}.
+     */
+    public ReachabilityIndex buildReachabilityIndex() {
+        return ReachabilityIndex.build(getGraph());
+    }
+
+    /**
+     * True if {@code ancestor} is a direct or indirect prerequisite of {@code course} in the edited
+     * graph; unknown course names are never related
+     */
+    public boolean isAncestor(String ancestor, String course) {
+        Integer ancestorId = resolve(ancestor);
+        Integer courseId = resolve(course);
+        if (ancestorId == null || courseId == null) {
+            return false;
+        }
+        indexEdits();
+        return reachable(courseId, true).contains(ancestorId);
+    }
+
+    /**
+     * Names of every direct and indirect prerequisite of a course in the edited graph, sorted
+     */
+    public List<String> allAncestors(String course) {
+        return reachableNames(course, true);
+    }
+
+    /**
+     * Names of every course that directly or indirectly requires a course in the edited graph, sorted
+     */
+    public List<String> allDescendants(String course) {
+        return reachableNames(course, false);
+    }
+
+    private List<String> reachableNames(String course, boolean prerequisites) {
+        Integer courseId = resolve(course);
+        if (courseId == null) {
+            return Collections.emptyList();
+        }
+        indexEdits();
+        List<String> names = new ArrayList<>();
+        for (int reachedId : reachable(courseId, prerequisites)) {
+            names.add(nameOf(reachedId));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Courses reached from a course over prerequisites or dependents, not counting the course
+     * itself unless it is on a cycle
+     */
+    private Set<Integer> reachable(int courseId, boolean prerequisites) {
+        Set<Integer> reached = new HashSet<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(courseId);
+        IntConsumer visit = next -> {
+            if (reached.add(next)) {
+                queue.add(next);
+            }
+        };
+        while (!queue.isEmpty()) {
+            if (prerequisites) {
+                forEachPrerequisite(queue.poll(), visit);
+            } else {
+                forEachDependent(queue.poll(), visit);
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Analyze what the proposed edits change: courses whose direct or indirect prerequisites
+     * differ, courses that lose a dropped prerequisite, and circular dependencies afterwards.
+     * Only the part of the snapshot the edits reach is walked; see the class comment.
+     */
+    public Impact analyze() {
+        long startTime = System.nanoTime();
+        indexEdits();
+
+        // Courses whose own prerequisite list changes; everything downstream of them is affected
+        Set<Integer> changedCourseIds = new HashSet<>();
+        Set<String> losingPrerequisites = new HashSet<>();
+        for (long key : addedEdges) {
+            changedCourseIds.add(courseOf(key));
+        }
+        for (long key : removedEdges) {
+            if (exists(courseOf(key))) {
+                changedCourseIds.add(courseOf(key));
+            }
+        }
+        for (int courseId : removedCourseIds) {
+            int course = base.indexOfCourseId(courseId);
+            for (int i = 0; i < base.dependentCount(course); i++) {
+                int dependent = base.dependent(course, i);
+                if (!removedCourseIds.contains(base.courseId(dependent))) {
+                    changedCourseIds.add(base.courseId(dependent));
+                    losingPrerequisites.add(base.name(dependent));
+                }
+            }
+        }
+
+        // Everything downstream of those in the edited graph
+        Set<Integer> affected = new HashSet<>(changedCourseIds);
+        ArrayDeque<Integer> queue = new ArrayDeque<>(changedCourseIds);
+        while (!queue.isEmpty()) {
+            forEachDependent(queue.poll(), dependent -> {
+                if (affected.add(dependent)) {
+                    queue.add(dependent);
+                }
+            });
+        }
+        // Courses that stop being downstream of a removed edge are affected too
+        for (long key : removedEdges) {
+            markBaseDescendants(base.indexOfCourseId(courseOf(key)), affected);
+        }
+
+        List<String> affectedCourses = new ArrayList<>(affected.size());
+        for (int courseId : affected) {
+            affectedCourses.add(nameOf(courseId));
+        }
+        Collections.sort(affectedCourses);
+        List<String> losing = new ArrayList<>(losingPrerequisites);
+        Collections.sort(losing);
+
+        if (baseComponents == null) {
+            baseComponents = StronglyConnectedComponents.compute(base);
+        }
+        Set<Long> closingEdges = new HashSet<>();
+        List<List<String>> cycleGroups = cycleGroups(closingEdges);
+
+        Impact impact = new Impact(affectedCourses, losing, cycleGroups,
+                                   baseComponents.cycleGroups().size(), !closingEdges.isEmpty(),
+                                   (System.nanoTime() - startTime) / 1_000);
+        logger.debug("Analyzed sandbox: {}", impact);
+        return impact;
+    }
+
+    /**
+     * Circular dependency groups of the edited graph. Removing edges or courses can only split
+     * the snapshot's cycle groups they touch, and a new cycle must run through an added edge
+     * {@code course -> prerequisite}, so through courses that the prerequisite reaches and that
+     * reach the course. Components are recomputed over just those courses; every other cycle
+     * group of the snapshot is kept as it was. Added edges whose ends share a recomputed group,
+     * i.e. whose course the prerequisite already reaches, go into {@code closingEdges}.
+     */
+    private List<List<String>> cycleGroups(Set<Long> closingEdges) {
+        Set<Integer> region = new HashSet<>();
+
+        // Snapshot cycle groups that lose a member or an edge
+        for (int courseId : removedCourseIds) {
+            addCycleGroup(base.indexOfCourseId(courseId), region);
+        }
+        for (long key : removedEdges) {
+            int course = base.indexOfCourseId(courseOf(key));
+            int prerequisite = base.indexOfCourseId(prerequisiteOf(key));
+            if (course >= 0 && prerequisite >= 0
+                    && baseComponents.componentOf(course) == baseComponents.componentOf(prerequisite)) {
+                addCycleGroup(course, region);
+            }
+        }
+
+        // Courses on a path from an added edge's prerequisite back to an added edge's course
+        Set<Integer> reached = new HashSet<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (long key : addedEdges) {
+            if (reached.add(prerequisiteOf(key))) {
+                queue.add(prerequisiteOf(key));
+            }
+        }
+        while (!queue.isEmpty()) {
+            forEachPrerequisite(queue.poll(), prerequisite -> {
+                if (reached.add(prerequisite)) {
+                    queue.add(prerequisite);
+                }
+            });
+        }
+        Set<Integer> onCycle = new HashSet<>();
+        for (long key : addedEdges) {
+            if (reached.contains(courseOf(key)) && onCycle.add(courseOf(key))) {
+                queue.add(courseOf(key));
+            }
+        }
+        while (!queue.isEmpty()) {
+            forEachDependent(queue.poll(), dependent -> {
+                if (reached.contains(dependent) && onCycle.add(dependent)) {
+                    queue.add(dependent);
+                }
+            });
+        }
+        region.addAll(onCycle);
+
+        List<List<String>> groups = new ArrayList<>();
+        for (int[] group : baseComponents.cycleGroups()) {
+            boolean untouched = true;
+            for (int course : group) {
+                int courseId = base.courseId(course);
+                if (removedCourseIds.contains(courseId) || region.contains(courseId)) {
+                    untouched = false;
+                    break;
+                }
+            }
+            if (untouched) {
+                List<String> names = new ArrayList<>(group.length);
+                for (int course : group) {
+                    names.add(base.name(course));
+                }
+                groups.add(names);
+            }
+        }
+        Map<Integer, Integer> componentOf = new HashMap<>();
+        groups.addAll(regionCycleGroups(region, componentOf));
+        for (long key : addedEdges) {
+            Integer component = componentOf.get(courseOf(key));
+            if (component != null && component.equals(componentOf.get(prerequisiteOf(key)))) {
+                closingEdges.add(key);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Add the existing members of a snapshot course's cycle group, if it is on one
+     */
+    private void addCycleGroup(int baseCourse, Set<Integer> region) {
+        if (baseCourse < 0 || !baseComponents.isCyclic(baseCourse)) {
+            return;
+        }
+        for (int member : baseComponents.members(baseComponents.componentOf(baseCourse))) {
+            if (!removedCourseIds.contains(base.courseId(member))) {
+                region.add(base.courseId(member));
+            }
+        }
+    }
+
+    /**
+     * Cycle groups of the edited graph restricted to a set of courses, by an iterative Tarjan
+     * traversal like {@link StronglyConnectedComponents}. Fills {@code componentOf} with the
+     * component number of every course in the region.
+     */
+    private List<List<String>> regionCycleGroups(Set<Integer> region, Map<Integer, Integer> componentOf) {
+        Map<Integer, int[]> edges = new HashMap<>();
+        for (int courseId : region) {
+            List<Integer> inside = new ArrayList<>();
+            forEachPrerequisite(courseId, prerequisite -> {
+                if (region.contains(prerequisite)) {
+                    inside.add(prerequisite);
+                }
+            });
+            edges.put(courseId, inside.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Map<Integer, Integer> index = new HashMap<>();
+        Map<Integer, Integer> lowLink = new HashMap<>();
+        Map<Integer, Integer> nextEdge = new HashMap<>();
+        Set<Integer> onStack = new HashSet<>();
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> callStack = new ArrayDeque<>();
+        List<List<String>> groups = new ArrayList<>();
+
+        for (int root : region) {
+            if (index.containsKey(root)) {
+                continue;
+            }
+            callStack.push(root);
+            while (!callStack.isEmpty()) {
+                int v = callStack.peek();
+                if (!index.containsKey(v)) {
+                    index.put(v, index.size());
+                    lowLink.put(v, index.get(v));
+                    nextEdge.put(v, 0);
+                    stack.push(v);
+                    onStack.add(v);
+                }
+                int[] out = edges.get(v);
+                int i = nextEdge.get(v);
+                if (i < out.length) {
+                    nextEdge.put(v, i + 1);
+                    int w = out[i];
+                    if (!index.containsKey(w)) {
+                        callStack.push(w);
+                    } else if (onStack.contains(w)) {
+                        lowLink.put(v, Math.min(lowLink.get(v), index.get(w)));
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    int parent = callStack.peek();
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(v)));
+                }
+                if (lowLink.get(v).equals(index.get(v))) {
+                    List<String> names = new ArrayList<>();
+                    int w;
+                    do {
+                        w = stack.pop();
+                        onStack.remove(w);
+                        componentOf.put(w, v);
+                        names.add(nameOf(w));
+                    } while (w != v);
+                    if (names.size() > 1 || hasSelfLoop(edges.get(v), v)) {
+                        Collections.sort(names);
+                        groups.add(names);
+                    }
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static boolean hasSelfLoop(int[] prerequisites, int courseId) {
+        for (int prerequisite : prerequisites) {
+            if (prerequisite == courseId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the snapshot descendants of a course that still exist in the edited graph
+     */
+    private void markBaseDescendants(int baseCourse, Set<Integer> affected) {
+        if (baseCourse < 0) {
+            return;
+        }
+        Set<Integer> visited = new HashSet<>();
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        stack.push(baseCourse);
+        visited.add(baseCourse);
+        while (!stack.isEmpty()) {
+            int course = stack.pop();
+            if (!removedCourseIds.contains(base.courseId(course))) {
+                affected.add(base.courseId(course));
+            }
+            for (int i = 0; i < base.dependentCount(course); i++) {
+                int dependent = base.dependent(course, i);
+                if (visited.add(dependent)) {
+                    stack.push(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Call {@code action} with each prerequisite of a course in the edited graph
+     */
+    private void forEachPrerequisite(int courseId, IntConsumer action) {
+        int course = base.indexOfCourseId(courseId);
+        if (course >= 0 && !removedCourseIds.contains(courseId)) {
+            for (int i = 0; i < base.prerequisiteCount(course); i++) {
+                int prerequisiteId = base.courseId(base.prerequisite(course, i));
+                if (!removedCourseIds.contains(prerequisiteId)
+                        && !removedEdges.contains(edgeKey(courseId, prerequisiteId))) {
+                    action.accept(prerequisiteId);
+                }
+            }
+        }
+        for (int prerequisiteId : addedPrerequisites.getOrDefault(courseId, Collections.<Integer>emptyList())) {
+            action.accept(prerequisiteId);
+        }
+    }
+
+    /**
+     * Call {@code action} with each course that lists a course as a prerequisite in the edited graph
+     */
+    private void forEachDependent(int courseId, IntConsumer action) {
+        int course = base.indexOfCourseId(courseId);
+        if (course >= 0 && !removedCourseIds.contains(courseId)) {
+            for (int i = 0; i < base.dependentCount(course); i++) {
+                int dependentId = base.courseId(base.dependent(course, i));
+                if (!removedCourseIds.contains(dependentId)
+                        && !removedEdges.contains(edgeKey(dependentId, courseId))) {
+                    action.accept(dependentId);
+                }
+            }
+        }
+        for (int dependentId : addedDependents.getOrDefault(courseId, Collections.<Integer>emptyList())) {
+            action.accept(dependentId);
+        }
+    }
+
+    /**
+     * Index the added edges by both ends, once per set of edits
+     */
+    private void indexEdits() {
+        if (addedPrerequisites != null) {
+            return;
+        }
+        addedPrerequisites = new HashMap<>();
+        addedDependents = new HashMap<>();
+        for (long key : addedEdges) {
+            addedPrerequisites.computeIfAbsent(courseOf(key), k -> new ArrayList<>()).add(prerequisiteOf(key));
+            addedDependents.computeIfAbsent(prerequisiteOf(key), k -> new ArrayList<>()).add(courseOf(key));
+        }
+    }
+
+    private boolean exists(int courseId) {
+        return addedCourseIds.containsValue(courseId)
+               || (base.indexOfCourseId(courseId) >= 0 && !removedCourseIds.contains(courseId));
+    }
+
+    private String nameOf(int courseId) {
+        int course = base.indexOfCourseId(courseId);
+        if (course >= 0) {
+            return base.name(course);
+        }
+        for (Map.Entry<String, Integer> entry : addedCourseIds.entrySet()) {
+            if (entry.getValue() == courseId) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unknown sandbox course ID: " + courseId);
+    }
+
+    /**
+     * Apply the proposed edits in one transaction: dropped relationships, dropped courses,
+     * new courses, then new relationships, so a course may be removed and added again under
+     * the same name. Nothing is written if any step fails, including a new relationship
+     * rejected by the DAO's cycle check. The sandbox cannot be edited afterwards; load a fresh
+     * snapshot for further proposals.
+     */
+    public void commit(CourseDAO courseDAO, PrerequisiteDAO prerequisiteDAO) throws SQLException {
+        checkOpen();
+        List<Course> courses = new ArrayList<>(addedCourses.values());
+        List<Prerequisite> droppedEdges = new ArrayList<>();
+        for (long key : removedEdges) {
+            if (!removedCourseIds.contains(courseOf(key)) && !removedCourseIds.contains(prerequisiteOf(key))) {
+                droppedEdges.add(new Prerequisite(courseOf(key), prerequisiteOf(key), true));
+            }
+        }
+        List<Integer> droppedCourses = new ArrayList<>(removedCourseIds);
+
+        // The detector must forget the dropped edges before the new ones are checked against it,
+        // or reversing a relationship would look circular
+        IncrementalCycleDetector detector = prerequisiteDAO.getCycleDetector();
+        List<Prerequisite> forgottenEdges = detector != null
+            ? forgetDroppedEdges(detector, droppedEdges, droppedCourses) : Collections.<Prerequisite>emptyList();
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            List<Prerequisite> newEdges = Collections.emptyList();
+            try {
+                prerequisiteDAO.deletePrerequisitesBatch(conn, droppedEdges);
+                courseDAO.deleteCoursesBatch(conn, droppedCourses);
+
+                courseDAO.insertCoursesBatch(conn, courses);
+                Map<Integer, Integer> courseIds = new HashMap<>();
+                for (Course course : courses) {
+                    courseIds.put(addedCourseIds.get(course.getCourseName()), course.getCourseId());
+                }
+
+                newEdges = new ArrayList<>();
+                for (long key : addedEdges) {
+                    newEdges.add(new Prerequisite(courseIds.getOrDefault(courseOf(key), courseOf(key)),
+                                                  courseIds.getOrDefault(prerequisiteOf(key), prerequisiteOf(key)),
+                                                  true));
+                }
+                prerequisiteDAO.insertPrerequisitesBatch(conn, newEdges);
+                conn.commit();
+                courseDAO.publishSaved(courses);
+                courseDAO.publishDeleted(droppedCourses);
+            } catch (SQLException e) {
+                conn.rollback();
+                if (detector != null) {
+                    for (Prerequisite edge : newEdges) {
+                        detector.removeEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
+                    }
+                    for (Prerequisite edge : forgottenEdges) {
+                        detector.addEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
+                    }
+                }
+                for (Course course : courses) {
+                    course.setCourseId(0);
+                }
+                logger.warn("Sandbox commit rolled back: {}", e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        if (detector != null) {
+            // Also drops edges to the removed courses written since the snapshot was loaded
+            for (int courseId : droppedCourses) {
+                detector.removeCourse(courseId);
+            }
+        }
+        committed = true;
+        logger.info("Sandbox committed: {} courses added, {} removed, {} prerequisites added, {} removed",
+                   courses.size(), droppedCourses.size(), addedEdges.size(), droppedEdges.size());
+    }
+
+    /**
+     * Remove the dropped relationships, and those of the dropped courses as the snapshot knew
+     * them, from the detector. Returns the edges it held, to be restored on rollback.
+     */
+    private List<Prerequisite> forgetDroppedEdges(IncrementalCycleDetector detector, List<Prerequisite> droppedEdges,
+                                                  List<Integer> droppedCourses) {
+        List<Prerequisite> candidates = new ArrayList<>(droppedEdges);
+        for (int courseId : droppedCourses) {
+            int course = base.indexOfCourseId(courseId);
+            if (course < 0) {
+                continue;
+            }
+            for (int i = 0; i < base.prerequisiteCount(course); i++) {
+                candidates.add(new Prerequisite(courseId, base.courseId(base.prerequisite(course, i)), true));
+            }
+            for (int i = 0; i < base.dependentCount(course); i++) {
+                candidates.add(new Prerequisite(base.courseId(base.dependent(course, i)), courseId, true));
+            }
+        }
+
+        List<Prerequisite> forgotten = new ArrayList<>();
+        for (Prerequisite edge : candidates) {
+            if (detector.containsEdge(edge.getCourseId(), edge.getPrerequisiteCourseId())) {
+                detector.removeEdge(edge.getCourseId(), edge.getPrerequisiteCourseId());
+                forgotten.add(edge);
+            }
+        }
+        return forgotten;
+    }
+
+    private PrerequisiteGraph merge() {
+        long startTime = System.nanoTime();
+        PrerequisiteGraph.Builder builder = new PrerequisiteGraph.Builder();
+        for (int v = 0; v < base.size(); v++) {
+            if (!removedCourseIds.contains(base.courseId(v))) {
+                builder.addCourse(base.courseId(v), base.name(v), base.creditHours(v), base.majorType(v));
+            }
+        }
+        for (Course course : addedCourses.values()) {
+            builder.addCourse(addedCourseIds.get(course.getCourseName()), course.getCourseName(),
+                              course.getCreditHours(), course.getMajorType());
+        }
+
+        for (int v = 0; v < base.size(); v++) {
+            int courseId = base.courseId(v);
+            if (removedCourseIds.contains(courseId)) {
+                continue;
+            }
+            for (int i = 0; i < base.prerequisiteCount(v); i++) {
+                int prerequisiteId = base.courseId(base.prerequisite(v, i));
+                if (!removedCourseIds.contains(prerequisiteId)
+                        && !removedEdges.contains(edgeKey(courseId, prerequisiteId))) {
+                    int group = base.prerequisiteGroup(v, i);
+                    builder.addEdge(courseId, prerequisiteId, group != PrerequisiteGraph.OPTIONAL, group);
+                }
+            }
+        }
+        for (long key : addedEdges) {
+            builder.addEdge(courseOf(key), prerequisiteOf(key));
+        }
+
+        PrerequisiteGraph graph = builder.build();
+        logger.debug("Merged sandbox graph: {} courses, {} edges in {} us",
+                    graph.size(), graph.edgeCount(), (System.nanoTime() - startTime) / 1_000);
+        return graph;
+    }
+
+    private boolean isBaseEdge(long key) {
+        int course = base.indexOfCourseId(courseOf(key));
+        int prerequisite = base.indexOfCourseId(prerequisiteOf(key));
+        if (course < 0 || prerequisite < 0) {
+            return false;
+        }
+        for (int i = 0; i < base.prerequisiteCount(course); i++) {
+            if (base.prerequisite(course, i) == prerequisite) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ID of a course present in the sandbox, or null
+     */
+    private Integer resolve(String courseName) {
+        Integer added = addedCourseIds.get(courseName);
+        if (added != null) {
+            return added;
+        }
+        int course = base.indexOf(courseName);
+        if (course < 0 || removedCourseIds.contains(base.courseId(course))) {
+            return null;
+        }
+        return base.courseId(course);
+    }
+
+    private int require(String courseName) {
+        Integer courseId = resolve(courseName);
+        if (courseId == null) {
+            throw new IllegalArgumentException("Course not found: " + courseName);
+        }
+        return courseId;
+    }
+
+    private void checkOpen() {
+        if (committed) {
+            throw new IllegalStateException("Sandbox has already been committed");
+        }
+    }
+
+    private void changed() {
+        merged = null;
+        addedPrerequisites = null;
+        addedDependents = null;
+    }
+
+    private static long edgeKey(int courseId, int prerequisiteCourseId) {
+        return ((long) courseId << 32) | (prerequisiteCourseId & 0xFFFFFFFFL);
+    }
+
+    private static int courseOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int prerequisiteOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Effect of the proposed edits
+     */
+    public static class Impact {
+        private final List<String> affectedCourses;
+        private final List<String> coursesLosingPrerequisites;
+        private final List<List<String>> cycleGroups;
+        private final int baseCycleGroupCount;
+        private final boolean introducesCycle;
+        private final long elapsedMicros;
+
+        public Impact(List<String> affectedCourses, List<String> coursesLosingPrerequisites,
+                      List<List<String>> cycleGroups, int baseCycleGroupCount, boolean introducesCycle,
+                      long elapsedMicros) {
+            this.affectedCourses = affectedCourses;
+            this.coursesLosingPrerequisites = coursesLosingPrerequisites;
+            this.cycleGroups = cycleGroups;
+            this.baseCycleGroupCount = baseCycleGroupCount;
+            this.introducesCycle = introducesCycle;
+            this.elapsedMicros = elapsedMicros;
+        }
+
+        /**
+         * Courses whose direct or indirect prerequisites change
+         */
+        public List<String> getAffectedCourses() {
+            return affectedCourses;
+        }
+
+        /**
+         * Courses that lose a prerequisite because that course is dropped
+         */
+        public List<String> getCoursesLosingPrerequisites() {
+            return coursesLosingPrerequisites;
+        }
+
+        /**
+         * Circular dependency groups in the edited graph
+         */
+        public List<List<String>> getCycleGroups() {
+            return cycleGroups;
+        }
+
+        /**
+         * True if a proposed prerequisite closes a circular dependency, i.e. its course is
+         * already a direct or indirect prerequisite of it in the edited graph
+         */
+        public boolean introducesCycle() {
+            return introducesCycle;
+        }
+
+        public long getElapsedMicros() {
+            return elapsedMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Impact{affected=%d, losingPrerequisites=%d, cycleGroups=%d (was %d), "
+                               + "introducesCycle=%b, elapsedMicros=%d}",
+                               affectedCourses.size(), coursesLosingPrerequisites.size(),
+                               cycleGroups.size(), baseCycleGroupCount, introducesCycle, elapsedMicros);
+        }
+    }
+}
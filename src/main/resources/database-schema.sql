@@ -10,7 +10,9 @@ CREATE TABLE IF NOT EXISTS courses (
     major_type ENUM('Major1', 'Major2', 'GeneralEducation', 'Minor') NOT NULL,
     description TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    -- Microsecond precision so CourseDAO#getCatalogVersion sees changes within the same second
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    INDEX idx_courses_updated_at (updated_at)
 );
 
 -- Prerequisites table (many-to-many relationship)
@@ -19,12 +21,26 @@ CREATE TABLE IF NOT EXISTS prerequisites (
     course_id INT NOT NULL,
     prerequisite_course_id INT NOT NULL,
     is_required BOOLEAN DEFAULT TRUE,
+    -- Rows of one course sharing a group are alternatives (OR); NULL means required on its own
+    alternative_group INT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (course_id) REFERENCES courses(course_id) ON DELETE CASCADE,
     FOREIGN KEY (prerequisite_course_id) REFERENCES courses(course_id) ON DELETE CASCADE,
-    UNIQUE KEY unique_prerequisite (course_id, prerequisite_course_id)
+    UNIQUE KEY unique_prerequisite (course_id, prerequisite_course_id),
+    -- Lets the report scan by prerequisite stream in index order
+    INDEX idx_prerequisites_by_prerequisite (prerequisite_course_id, course_id),
+    INDEX idx_prerequisites_updated_at (updated_at)
 );
 
+-- Existing databases: ALTER TABLE prerequisites ADD COLUMN alternative_group INT NULL AFTER is_required;
+-- Existing databases: ALTER TABLE prerequisites ADD COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) AFTER created_at;
+-- Existing databases: ALTER TABLE courses MODIFY updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+-- Existing databases: ALTER TABLE prerequisites MODIFY updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+-- Existing databases: CREATE INDEX idx_courses_updated_at ON courses (updated_at);
+-- Existing databases: CREATE INDEX idx_prerequisites_updated_at ON prerequisites (updated_at);
+-- Existing databases: CREATE INDEX idx_prerequisites_by_prerequisite ON prerequisites (prerequisite_course_id, course_id);
+
 
 -- Sample data insertion
 INSERT INTO courses (course_name, credit_hours, major_type, description) VALUES
@@ -40,34 +56,34 @@ INSERT INTO courses (course_name, credit_hours, major_type, description) VALUES
 ('Stat4202', 4, 'Major1', 'Intro to Mathematical Statistics II');
 
 -- Insert prerequisite relationships
-INSERT INTO prerequisites (course_id, prerequisite_course_id) VALUES
+INSERT INTO prerequisites (course_id, prerequisite_course_id, alternative_group) VALUES
 -- Math 2568 requires Math 2153
 ((SELECT course_id FROM courses WHERE course_name = 'Math2568'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Math 2568H requires Math 2153  
 ((SELECT course_id FROM courses WHERE course_name = 'Math2568H'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Math 3345 requires Math 2153
 ((SELECT course_id FROM courses WHERE course_name = 'Math3345'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Math 3345H requires Math 2153
 ((SELECT course_id FROM courses WHERE course_name = 'Math3345H'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Math 4530 requires Math 2153
 ((SELECT course_id FROM courses WHERE course_name = 'Math4530'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Stat 4201 requires Math 2153
 ((SELECT course_id FROM courses WHERE course_name = 'Stat4201'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math2153')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math2153'), NULL),
 
 -- Stat 4202 requires Math 4530 OR Stat 4201
 ((SELECT course_id FROM courses WHERE course_name = 'Stat4202'), 
- (SELECT course_id FROM courses WHERE course_name = 'Math4530')),
+ (SELECT course_id FROM courses WHERE course_name = 'Math4530'), 1),
 ((SELECT course_id FROM courses WHERE course_name = 'Stat4202'), 
- (SELECT course_id FROM courses WHERE course_name = 'Stat4201'));
+ (SELECT course_id FROM courses WHERE course_name = 'Stat4201'), 1);
 
@@ -0,0 +1,178 @@
+package edu.college.courses.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalCycleDetectorTest {
+
+    @Test
+    void rejectsSelfLoopAndDirectCycle() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+
+        assertFalse(detector.addEdge(1, 1));
+        assertTrue(detector.addEdge(2, 1));
+        assertFalse(detector.addEdge(1, 2));
+        assertEquals(1, detector.edgeCount());
+        assertFalse(detector.containsEdge(1, 2));
+    }
+
+    @Test
+    void reordersWhenEdgeDisagreesWithOrder() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        // New prerequisites are placed first, so 3 starts ahead of 2 and linking 2 -> 3 reorders
+        assertTrue(detector.addEdge(2, 1));
+        assertTrue(detector.addEdge(4, 3));
+        assertTrue(detector.addEdge(3, 2));
+
+        assertTrue(detector.wouldCreateCycle(1, 4));
+        assertFalse(detector.addEdge(1, 4));
+        assertTrue(detector.addEdge(4, 1));
+        assertFalse(detector.wouldCreateCycle(5, 4));
+        assertEquals(4, detector.edgeCount());
+    }
+
+    @Test
+    void wouldCreateCycleLeavesGraphUnchanged() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        detector.addEdge(2, 1);
+        detector.addEdge(3, 2);
+
+        assertTrue(detector.wouldCreateCycle(1, 3));
+        assertFalse(detector.wouldCreateCycle(3, 1));
+        assertFalse(detector.containsEdge(3, 1));
+        assertEquals(2, detector.edgeCount());
+        assertEquals(3, detector.courseCount());
+    }
+
+    @Test
+    void duplicateEdgeIsAcceptedOnce() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+
+        assertTrue(detector.addEdge(2, 1));
+        assertTrue(detector.addEdge(2, 1));
+        assertEquals(1, detector.edgeCount());
+    }
+
+    @Test
+    void removingEdgesAllowsTheReverseEdge() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        detector.addEdge(2, 1);
+        detector.addEdge(3, 2);
+        assertFalse(detector.addEdge(1, 3));
+
+        detector.removeEdge(3, 2);
+        assertFalse(detector.containsEdge(3, 2));
+        assertTrue(detector.addEdge(1, 3));
+
+        // Removing an unknown edge or course is a no-op
+        detector.removeEdge(9, 8);
+        detector.removeCourse(42);
+        assertEquals(2, detector.edgeCount());
+    }
+
+    @Test
+    void removeCourseDropsEdgesInBothDirections() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        detector.addEdge(2, 1);
+        detector.addEdge(3, 2);
+        detector.addEdge(4, 2);
+
+        detector.removeCourse(2);
+
+        assertEquals(0, detector.edgeCount());
+        assertTrue(detector.addEdge(1, 3));
+        assertTrue(detector.addEdge(2, 4));
+    }
+
+    @Test
+    void removePrerequisitesOfKeepsDependents() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        detector.addEdge(2, 1);
+        detector.addEdge(3, 2);
+
+        detector.removePrerequisitesOf(2);
+
+        assertFalse(detector.containsEdge(2, 1));
+        assertTrue(detector.containsEdge(3, 2));
+        assertTrue(detector.addEdge(1, 3));
+    }
+
+    @Test
+    void fromEdgesSkipsEdgesThatCloseExistingCycles() {
+        // 1 <- 2 <- 3 <- 1 is a cycle; 4 <- 3 hangs off it
+        int[] courseIds = {2, 3, 1, 4};
+        int[] prerequisiteIds = {1, 2, 3, 3};
+
+        IncrementalCycleDetector detector = IncrementalCycleDetector.fromEdges(courseIds, prerequisiteIds, 4);
+
+        assertEquals(1, detector.getRejectedOnLoad());
+        assertEquals(3, detector.edgeCount());
+        assertEquals(4, detector.courseCount());
+        assertTrue(detector.containsEdge(4, 3));
+    }
+
+    @Test
+    void matchesReachabilityOnRandomEdits() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int courses = 2 + random.nextInt(30);
+            IncrementalCycleDetector detector = new IncrementalCycleDetector();
+            Set<Long> edges = new HashSet<>();
+
+            for (int step = 0; step < 300; step++) {
+                int course = random.nextInt(courses);
+                int prerequisite = random.nextInt(courses);
+                if (random.nextInt(5) == 0) {
+                    detector.removeEdge(course, prerequisite);
+                    edges.remove(key(course, prerequisite));
+                    continue;
+                }
+                boolean closesCycle = course == prerequisite || reaches(edges, courses, course, prerequisite);
+                assertEquals(closesCycle, detector.wouldCreateCycle(course, prerequisite),
+                             "round " + round + " step " + step);
+                assertEquals(!closesCycle, detector.addEdge(course, prerequisite),
+                             "round " + round + " step " + step);
+                if (!closesCycle) {
+                    edges.add(key(course, prerequisite));
+                }
+                assertEquals(edges.size(), detector.edgeCount());
+            }
+        }
+    }
+
+    /**
+     * True if {@code to} depends, directly or not, on {@code from}
+     */
+    private static boolean reaches(Set<Long> edges, int courses, int from, int to) {
+        boolean[] seen = new boolean[courses];
+        List<Integer> stack = new ArrayList<>();
+        stack.add(from);
+        seen[from] = true;
+        while (!stack.isEmpty()) {
+            int v = stack.remove(stack.size() - 1);
+            if (v == to) {
+                return true;
+            }
+            for (int w = 0; w < courses; w++) {
+                if (!seen[w] && edges.contains(key(w, v))) {
+                    seen[w] = true;
+                    stack.add(w);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long key(int course, int prerequisite) {
+        return ((long) course << 32) | prerequisite;
+    }
+}
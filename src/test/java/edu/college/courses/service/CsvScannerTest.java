@@ -0,0 +1,192 @@
+package edu.college.courses.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvScannerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void splitsPlainFieldsOnLfAndCrlf() throws IOException {
+        List<List<String>> records = scan("a,b,c\r\nd,,f\n");
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("d", "", "f")), records);
+    }
+
+    @Test
+    void unquotesFieldsAndEscapedQuotes() throws IOException {
+        List<List<String>> records = scan("\"Math, Honors\",\"say \"\"hi\"\"\",\"\"\n");
+
+        assertEquals(Arrays.asList(Arrays.asList("Math, Honors", "say \"hi\"", "")), records);
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotesAndCountsTheirLines() throws IOException {
+        Path file = write("Math1151,\"Calculus\nII\",5\nMath2153,Calculus III,4\n");
+
+        try (CsvScanner scanner = CsvScanner.open(file)) {
+            assertTrue(scanner.nextRecord());
+            assertEquals("Calculus\nII", scanner.field(1));
+            assertEquals(1, scanner.lineNumber());
+
+            assertTrue(scanner.nextRecord());
+            assertEquals("Math2153", scanner.field(0));
+            assertEquals(3, scanner.lineNumber());
+            assertFalse(scanner.nextRecord());
+        }
+    }
+
+    @Test
+    void skipsByteOrderMark() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] text = "Math1151,5\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = Arrays.copyOf(bom, bom.length + text.length);
+        System.arraycopy(text, 0, bytes, bom.length, text.length);
+        Path file = tempDir.resolve("bom.csv");
+        Files.write(file, bytes);
+
+        try (CsvScanner scanner = CsvScanner.open(file)) {
+            assertTrue(scanner.nextRecord());
+            assertEquals("Math1151", scanner.field(0));
+            assertEquals(5, scanner.intField(1));
+        }
+    }
+
+    @Test
+    void readsLastRecordWithoutLineBreak() throws IOException {
+        Path file = write("a,b\nc,\"d\"");
+
+        try (CsvScanner scanner = CsvScanner.open(file)) {
+            assertTrue(scanner.nextRecord());
+            assertTrue(scanner.nextRecord());
+            assertEquals("c", scanner.field(0));
+            assertEquals("d", scanner.field(1));
+            assertEquals(Files.size(file), scanner.recordEnd());
+            assertFalse(scanner.nextRecord());
+        }
+    }
+
+    @Test
+    void emptyFileHasNoRecords() throws IOException {
+        assertTrue(scan("").isEmpty());
+    }
+
+    @Test
+    void remapsRecordsThatCrossRegionBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String description = i % 7 == 0 ? "line one\nline \"\"two\"\", end" : "course " + i;
+            csv.append("C").append(i).append(",\"").append(description).append("\",").append(i)
+               .append(i % 2 == 0 ? "\n" : "\r\n");
+            expected.add(Arrays.asList("C" + i, description.replace("\"\"", "\""), String.valueOf(i)));
+        }
+        Path file = write(csv.toString());
+
+        // Region sizes below, around and above a record, including ones that split quotes and CRLF
+        for (int regionBytes : new int[] {5, 7, 16, 31, 64, 1000}) {
+            List<List<String>> records = new ArrayList<>();
+            try (CsvScanner scanner = CsvScanner.open(file, 0, 1, regionBytes)) {
+                while (scanner.nextRecord()) {
+                    records.add(fields(scanner));
+                    assertEquals(records.size() - 1, scanner.intField(2), "region " + regionBytes);
+                }
+            }
+            assertEquals(expected, records, "region " + regionBytes);
+        }
+    }
+
+    @Test
+    void resumesFromSavedRecordEnd() throws IOException {
+        Path file = write("a,1\n\"b\nb\",2\nc,3\n");
+        long offset;
+        int nextLine;
+        try (CsvScanner scanner = CsvScanner.open(file)) {
+            scanner.nextRecord();
+            scanner.nextRecord();
+            offset = scanner.recordEnd();
+            nextLine = scanner.nextLineNumber();
+        }
+
+        try (CsvScanner scanner = CsvScanner.open(file, offset, nextLine, 4)) {
+            assertTrue(scanner.nextRecord());
+            assertEquals("c", scanner.field(0));
+            assertEquals(4, scanner.lineNumber());
+            assertFalse(scanner.nextRecord());
+        }
+    }
+
+    @Test
+    void sliceFromMarkSpansRemaps() throws IOException {
+        Path file = write("a,1\nb,2\nc,3\nd,4\n");
+
+        try (CsvScanner scanner = CsvScanner.open(file, 0, 1, 6)) {
+            scanner.mark();
+            for (int i = 0; i < 3; i++) {
+                assertTrue(scanner.nextRecord());
+            }
+            ByteBuffer slice = scanner.sliceFromMark();
+            byte[] bytes = new byte[slice.remaining()];
+            slice.get(bytes);
+            assertEquals("a,1\nb,2\nc,3\n", new String(bytes, StandardCharsets.UTF_8));
+
+            CsvScanner handedOver = new CsvScanner(ByteBuffer.wrap(bytes), 1);
+            assertTrue(handedOver.nextRecord());
+            assertEquals("a", handedOver.field(0));
+        }
+    }
+
+    @Test
+    void parsesAndTrimsFields() throws IOException {
+        Path file = write(" Math1151 , -42 ,\" 5 \",MAJOR1\n");
+
+        try (CsvScanner scanner = CsvScanner.open(file)) {
+            assertTrue(scanner.nextRecord());
+            assertEquals("Math1151", scanner.trimmedField(0));
+            assertEquals(-42, scanner.intField(1));
+            assertEquals(5, scanner.intField(2));
+            assertTrue(scanner.fieldEqualsIgnoreCase(3, "major1"));
+            assertThrows(NumberFormatException.class, () -> scanner.intField(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> scanner.field(4));
+        }
+    }
+
+    private List<List<String>> scan(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvScanner scanner = CsvScanner.open(write(csv))) {
+            while (scanner.nextRecord()) {
+                records.add(fields(scanner));
+            }
+        }
+        return records;
+    }
+
+    private static List<String> fields(CsvScanner scanner) {
+        List<String> fields = new ArrayList<>();
+        for (int f = 0; f < scanner.fieldCount(); f++) {
+            fields.add(scanner.field(f));
+        }
+        return fields;
+    }
+
+    private Path write(String csv) throws IOException {
+        Path file = tempDir.resolve("courses.csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.college.courses.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportCheckpointTest {
+    private static final String CSV = "Math1151,,5,Major1,Calculus I\n"
+                                    + "Math1152,Math1151,5,Major1,\"Calculus II,\nsecond term\"\n"
+                                    + "Math2153,Math1152,4,Major1,Calculus III\n"
+                                    + "Stat4201,Math2153,3,Major2,Statistics\n"
+                                    + "Math4530,Math2153|Stat4201,3,Major2,Probability";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void startsAtTheBeginningOfTheFile() throws IOException {
+        Path csv = write(CSV);
+
+        ImportCheckpoint checkpoint = ImportCheckpoint.start(csv);
+
+        assertEquals(0, checkpoint.getBatchId());
+        assertEquals(0, checkpoint.getByteOffset());
+        assertEquals(1, checkpoint.getNextLineNumber());
+        assertEquals(0, checkpoint.getErrorFileBytes());
+        assertTrue(checkpoint.matches(csv));
+    }
+
+    @Test
+    void savesAndLoadsEveryField() throws IOException {
+        Path csv = write(CSV);
+        Path file = tempDir.resolve("import.checkpoint");
+        ImportCheckpoint saved = ImportCheckpoint.start(csv).next(120, 4, 3, 5, 2, 1, 40, true);
+
+        saved.save(file);
+        ImportCheckpoint loaded = ImportCheckpoint.load(file);
+
+        assertEquals(1, loaded.getBatchId());
+        assertEquals(120, loaded.getByteOffset());
+        assertEquals(4, loaded.getNextLineNumber());
+        assertEquals(3, loaded.getRowsProcessed());
+        assertEquals(5, loaded.getCoursesImported());
+        assertEquals(2, loaded.getPrerequisitesImported());
+        assertEquals(1, loaded.getErrorCount());
+        assertEquals(40, loaded.getErrorFileBytes());
+        assertTrue(loaded.isErrorFileTruncated());
+        assertTrue(loaded.matches(csv));
+        assertFalse(Files.exists(tempDir.resolve("import.checkpoint.tmp")));
+    }
+
+    @Test
+    void saveReplacesThePreviousCheckpoint() throws IOException {
+        Path csv = write(CSV);
+        Path file = tempDir.resolve("import.checkpoint");
+        ImportCheckpoint first = ImportCheckpoint.start(csv).next(30, 2, 1, 1, 0, 0, 0, false);
+        first.save(file);
+
+        first.next(90, 4, 2, 2, 1, 0, 0, false).save(file);
+
+        assertEquals(2, ImportCheckpoint.load(file).getBatchId());
+        assertEquals(90, ImportCheckpoint.load(file).getByteOffset());
+    }
+
+    @Test
+    void missingCheckpointLoadsAsNullAndDeleteIsIdempotent() throws IOException {
+        Path file = tempDir.resolve("import.checkpoint");
+
+        assertNull(ImportCheckpoint.load(file));
+        ImportCheckpoint.start(write(CSV)).save(file);
+        ImportCheckpoint.delete(file);
+        ImportCheckpoint.delete(file);
+        assertNull(ImportCheckpoint.load(file));
+    }
+
+    @Test
+    void rejectsMalformedOrForeignCheckpoints() throws IOException {
+        Path file = tempDir.resolve("import.checkpoint");
+
+        Files.write(file, "version=1\nfile.size=12\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> ImportCheckpoint.load(file));
+
+        Files.write(file, "version=99\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> ImportCheckpoint.load(file));
+
+        ImportCheckpoint.start(write(CSV)).save(file);
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replaceFirst("offset=0", "offset=x");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> ImportCheckpoint.load(file));
+    }
+
+    @Test
+    void noLongerMatchesAChangedFile() throws IOException {
+        Path csv = write(CSV);
+        ImportCheckpoint checkpoint = ImportCheckpoint.start(csv);
+
+        Files.write(csv, (CSV + "\nMath5000,,3,Major2,Topics\n").getBytes(StandardCharsets.UTF_8));
+        assertFalse(checkpoint.matches(csv));
+
+        Files.write(csv, CSV.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 60_000));
+        assertFalse(checkpoint.matches(csv));
+    }
+
+    @Test
+    void resumeReadsEachRecordExactlyOnce() throws IOException {
+        Path csv = write(CSV);
+        Path file = tempDir.resolve("import.checkpoint");
+        List<String> all = courseNames(csv, ImportCheckpoint.start(csv));
+
+        // Import two batches of two records, checkpointing after each, then stop as if interrupted
+        List<String> seen = new ArrayList<>();
+        ImportCheckpoint checkpoint = ImportCheckpoint.start(csv);
+        try (CsvScanner scanner = CsvScanner.open(csv, 0, 1)) {
+            for (int batch = 0; batch < 2; batch++) {
+                for (int i = 0; i < 2 && scanner.nextRecord(); i++) {
+                    seen.add(scanner.field(0));
+                }
+                checkpoint = checkpoint.next(scanner.recordEnd(), scanner.nextLineNumber(),
+                                             (int) scanner.recordCount(), seen.size(), 0, 0, 0, false);
+                checkpoint.save(file);
+            }
+            // Read past the checkpoint; this record was never committed
+            assertTrue(scanner.nextRecord());
+        }
+
+        ImportCheckpoint resumed = ImportCheckpoint.load(file);
+        assertTrue(resumed.matches(csv));
+        assertEquals(2, resumed.getBatchId());
+        assertEquals(4, resumed.getRowsProcessed());
+        // The second record spans two lines, so the fifth record starts on line 6
+        assertEquals(6, resumed.getNextLineNumber());
+        seen.addAll(courseNames(csv, resumed));
+
+        assertEquals(Arrays.asList("Math1151", "Math1152", "Math2153", "Stat4201", "Math4530"), all);
+        assertEquals(all, seen);
+    }
+
+    private static List<String> courseNames(Path csv, ImportCheckpoint from) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (CsvScanner scanner = CsvScanner.open(csv, from.getByteOffset(), from.getNextLineNumber())) {
+            while (scanner.nextRecord()) {
+                names.add(scanner.field(0));
+            }
+        }
+        return names;
+    }
+
+    private Path write(String csv) throws IOException {
+        Path file = tempDir.resolve("courses.csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,108 @@
+package edu.college.courses.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportErrorLogTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesOneErrorPerLineAndKeepsASample() throws IOException {
+        Path file = tempDir.resolve("errors.txt");
+
+        try (ImportErrorLog log = new ImportErrorLog(file, 1024, 1)) {
+            log.add("Line 2: Insufficient fields");
+            log.add("Line 3: Bad\nvalue");
+            log.sync();
+
+            assertEquals(2, log.getCount());
+            assertEquals(Arrays.asList("Line 2: Insufficient fields"), log.getSample());
+            assertEquals(Files.size(file), log.getFileBytes());
+        }
+        assertEquals(Arrays.asList("Line 2: Insufficient fields", "Line 3: Bad value"), lines(file));
+    }
+
+    @Test
+    void stopsGrowingAtTheSizeLimit() throws IOException {
+        Path file = tempDir.resolve("errors.txt");
+
+        try (ImportErrorLog log = new ImportErrorLog(file, 20, 10)) {
+            log.add("Line 2: first");
+            log.add("Line 3: second error");
+            log.add("Line 4: third");
+
+            assertTrue(log.isTruncated());
+            assertEquals(3, log.getCount());
+            assertEquals(3, log.getSample().size());
+        }
+        List<String> lines = lines(file);
+        assertEquals(2, lines.size());
+        assertEquals("Line 2: first", lines.get(0));
+        assertTrue(lines.get(1).startsWith("... further errors omitted"));
+    }
+
+    @Test
+    void continuesFromCheckpointAndDropsUncommittedErrors() throws IOException {
+        Path file = tempDir.resolve("errors.txt");
+        long checkpointBytes;
+        try (ImportErrorLog log = new ImportErrorLog(file, 1024, 10)) {
+            log.add("Line 2: committed");
+            log.sync();
+            checkpointBytes = log.getFileBytes();
+            // Written after the checkpoint by a batch that never committed
+            log.add("Line 9: lost with its batch");
+        }
+
+        try (ImportErrorLog log = new ImportErrorLog(file, 1024, 10, 1, checkpointBytes, false)) {
+            assertEquals(checkpointBytes, Files.size(file));
+            log.add("Line 9: written again");
+
+            assertEquals(2, log.getCount());
+            assertEquals(Arrays.asList("Line 9: written again"), log.getSample());
+            assertFalse(log.isTruncated());
+        }
+        assertEquals(Arrays.asList("Line 2: committed", "Line 9: written again"), lines(file));
+    }
+
+    @Test
+    void resumedTruncatedLogWritesNothingMore() throws IOException {
+        Path file = tempDir.resolve("errors.txt");
+        long checkpointBytes;
+        try (ImportErrorLog log = new ImportErrorLog(file, 20, 10)) {
+            log.add("Line 2: first");
+            log.add("Line 3: second error");
+            checkpointBytes = log.getFileBytes();
+        }
+
+        try (ImportErrorLog log = new ImportErrorLog(file, 20, 10, 2, checkpointBytes, true)) {
+            log.add("Line 4: third");
+            assertEquals(3, log.getCount());
+        }
+        assertEquals(checkpointBytes, Files.size(file));
+    }
+
+    @Test
+    void rejectsErrorFileShorterThanItsCheckpoint() throws IOException {
+        Path file = tempDir.resolve("errors.txt");
+        Files.write(file, "Line 2: x\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> new ImportErrorLog(file, 1024, 10, 3, 500, false));
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,173 @@
+package edu.college.courses.service;
+
+import edu.college.courses.graph.PrerequisiteGraph;
+import edu.college.courses.graph.ReachabilityIndex;
+import edu.college.courses.model.Course;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WhatIfSandboxTest {
+
+    @Test
+    void edgeMergingTwoCyclesIntroducesCycle() {
+        // A <-> B and C <-> D, with A requiring C
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(4, 1, 2, 2, 1, 3, 4, 4, 3, 1, 3));
+
+        sandbox.addPrerequisite("C", "A");
+        WhatIfSandbox.Impact impact = sandbox.analyze();
+
+        assertEquals(Collections.singletonList(Arrays.asList("A", "B", "C", "D")), impact.getCycleGroups());
+        assertTrue(impact.introducesCycle());
+    }
+
+    @Test
+    void newCycleIsReportedWhileAnotherIsBroken() {
+        // A <-> B
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(2, 1, 2, 2, 1));
+        sandbox.addCourse(new Course("E", 3, Course.MajorType.Major1, "Elective"));
+        sandbox.addCourse(new Course("F", 3, Course.MajorType.Major1, "Elective"));
+
+        sandbox.removePrerequisite("B", "A")
+               .addPrerequisite("E", "F")
+               .addPrerequisite("F", "E");
+        WhatIfSandbox.Impact impact = sandbox.analyze();
+
+        assertEquals(Collections.singletonList(Arrays.asList("E", "F")), impact.getCycleGroups());
+        assertTrue(impact.introducesCycle());
+    }
+
+    @Test
+    void edgeInsideAnExistingCycleGroupCloses() {
+        // A -> B -> C -> A
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(3, 1, 2, 2, 3, 3, 1));
+
+        sandbox.addPrerequisite("B", "A");
+        WhatIfSandbox.Impact impact = sandbox.analyze();
+
+        assertEquals(1, impact.getCycleGroups().size());
+        assertTrue(impact.introducesCycle());
+    }
+
+    @Test
+    void breakingACycleDoesNotIntroduceOne() {
+        // A <-> B, and C requires B
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(3, 1, 2, 2, 1, 3, 2));
+
+        sandbox.removePrerequisite("A", "B").addPrerequisite("C", "A");
+        WhatIfSandbox.Impact impact = sandbox.analyze();
+
+        assertTrue(impact.getCycleGroups().isEmpty());
+        assertFalse(impact.introducesCycle());
+        assertEquals(Arrays.asList("A", "B", "C"), impact.getAffectedCourses());
+    }
+
+    @Test
+    void droppedCourseIsReportedForItsDependents() {
+        // B and C require A
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(3, 2, 1, 3, 1));
+
+        WhatIfSandbox.Impact impact = sandbox.removeCourse("A").analyze();
+
+        assertEquals(Arrays.asList("B", "C"), impact.getCoursesLosingPrerequisites());
+        assertFalse(impact.introducesCycle());
+    }
+
+    @Test
+    void overlayReachabilityAnswersWithEditsApplied() {
+        // B requires A, C requires B
+        WhatIfSandbox sandbox = new WhatIfSandbox(graph(4, 2, 1, 3, 2));
+
+        sandbox.removePrerequisite("C", "B").addPrerequisite("C", "D").addPrerequisite("D", "A");
+
+        assertTrue(sandbox.isAncestor("A", "C"));
+        assertFalse(sandbox.isAncestor("B", "C"));
+        assertFalse(sandbox.isAncestor("Unknown", "C"));
+        assertEquals(Arrays.asList("A", "D"), sandbox.allAncestors("C"));
+        assertEquals(Arrays.asList("B", "C", "D"), sandbox.allDescendants("A"));
+    }
+
+    @Test
+    void matchesMergedGraphOnRandomEdits() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int courses = 2 + random.nextInt(10);
+            int[] edges = new int[2 * random.nextInt(courses * 2)];
+            for (int i = 0; i < edges.length; i += 2) {
+                edges[i] = 1 + random.nextInt(courses);
+                edges[i + 1] = 1 + random.nextInt(courses);
+                if (edges[i] == edges[i + 1]) {
+                    edges[i + 1] = edges[i] % courses + 1;
+                }
+            }
+            WhatIfSandbox sandbox = new WhatIfSandbox(graph(courses, edges));
+
+            List<String[]> added = new ArrayList<>();
+            for (int step = 0; step < 4; step++) {
+                String course = name(1 + random.nextInt(courses));
+                String prerequisite = name(1 + random.nextInt(courses));
+                if (random.nextBoolean()) {
+                    sandbox.removePrerequisite(course, prerequisite);
+                    added.removeIf(edge -> edge[0].equals(course) && edge[1].equals(prerequisite));
+                } else {
+                    sandbox.addPrerequisite(course, prerequisite);
+                    added.add(new String[] {course, prerequisite});
+                }
+            }
+
+            ReachabilityIndex index = sandbox.buildReachabilityIndex();
+            boolean expectCycle = false;
+            for (String[] edge : added) {
+                // Still an edit only if the snapshot did not have it already
+                expectCycle |= index.isAncestor(edge[0], edge[1]) && !hasBaseEdge(sandbox, edge[0], edge[1]);
+            }
+            assertEquals(expectCycle, sandbox.analyze().introducesCycle(), "round " + round);
+
+            for (int v = 1; v <= courses; v++) {
+                List<String> ancestors = new ArrayList<>(index.allAncestors(name(v)));
+                Collections.sort(ancestors);
+                assertEquals(ancestors, sandbox.allAncestors(name(v)), "round " + round);
+                List<String> descendants = new ArrayList<>(index.allDescendants(name(v)));
+                Collections.sort(descendants);
+                assertEquals(descendants, sandbox.allDescendants(name(v)), "round " + round);
+            }
+        }
+    }
+
+    private static boolean hasBaseEdge(WhatIfSandbox sandbox, String course, String prerequisite) {
+        PrerequisiteGraph base = sandbox.getBaseGraph();
+        int c = base.indexOf(course);
+        for (int i = 0; i < base.prerequisiteCount(c); i++) {
+            if (base.name(base.prerequisite(c, i)).equals(prerequisite)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Courses A, B, ... with IDs 1, 2, ...; edges are course ID, prerequisite ID pairs
+     */
+    private static PrerequisiteGraph graph(int courses, int... edges) {
+        PrerequisiteGraph.Builder builder = new PrerequisiteGraph.Builder();
+        for (int id = 1; id <= courses; id++) {
+            builder.addCourse(id, name(id), 3, Course.MajorType.Major1);
+        }
+        for (int i = 0; i < edges.length; i += 2) {
+            builder.addEdge(edges[i], edges[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static String name(int id) {
+        return String.valueOf((char) ('A' + id - 1));
+    }
+}